@@ -0,0 +1,126 @@
+package com.example.hrsystem.benchmark;
+
+import com.example.hrsystem.mapper.ChangeLogMapper;
+import com.example.hrsystem.mapper.DepartmentsMapper;
+import com.example.hrsystem.mapper.EmployeesMapper;
+import com.example.hrsystem.mapper.ReportsMapper;
+import com.example.hrsystem.repository.ChangeLogRepository;
+import com.example.hrsystem.repository.DepartmentsRepository;
+import com.example.hrsystem.repository.EmployeesRepository;
+import com.example.hrsystem.repository.SingleFlight;
+import com.example.hrsystem.service.ChangeFeed;
+import com.example.hrsystem.service.ChangeLog;
+import com.example.hrsystem.service.DepartmentService;
+import com.example.hrsystem.service.EmployeesService;
+import com.example.hrsystem.service.HeadcountCounters;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// ベンチマーク用のデータベース
+// 組み込みの PostgreSQL を起動してテーブルとテストデータを用意し、本番と同じ Mapper / Repository / Service を組み立てる
+// Spring のコンテキストは起動しないので、キャッシュ (@Cacheable) やトランザクションの AOP は効かない (DB までの素の経路を測る)
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final HikariDataSource dataSource;
+    private final SqlSessionTemplate sqlSessionTemplate;
+
+    private BenchmarkDatabase(EmbeddedPostgres postgres, HikariDataSource dataSource, SqlSessionTemplate sqlSessionTemplate) {
+        this.postgres = postgres;
+        this.dataSource = dataSource;
+        this.sqlSessionTemplate = sqlSessionTemplate;
+    }
+
+    // 従業員 rows 件のデータベースを起動する
+    static BenchmarkDatabase start(int rows) throws IOException, SQLException {
+
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        dataSource.setMaximumPoolSize(4);
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, utf8(new ClassPathResource("benchmark/schema.sql")));
+            // 本番用の追加スクリプト (列・インデックス) を番号順に流す
+            Resource[] migrations = new PathMatchingResourcePatternResolver().getResources("classpath:db/*.sql");
+            Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+            for (Resource migration : migrations) {
+                ScriptUtils.executeSqlScript(connection, utf8(migration));
+            }
+            String data = new ClassPathResource("benchmark/data.sql").getContentAsString(StandardCharsets.UTF_8)
+                    .replace(":rows", String.valueOf(rows));
+            ScriptUtils.executeSqlScript(connection, utf8(new ByteArrayResource(data.getBytes(StandardCharsets.UTF_8))));
+        }
+
+        Configuration configuration = new Configuration(
+                new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(EmployeesMapper.class);
+        configuration.addMapper(DepartmentsMapper.class);
+        configuration.addMapper(ReportsMapper.class);
+        configuration.addMapper(ChangeLogMapper.class);
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        return new BenchmarkDatabase(postgres, dataSource, new SqlSessionTemplate(sqlSessionFactory));
+    }
+
+    // スクリプトは UTF-8 で読む (既定の文字コードだと日本語のテストデータが化ける)
+    private static EncodedResource utf8(Resource resource) {
+        return new EncodedResource(resource, StandardCharsets.UTF_8);
+    }
+
+    EmployeesService employeesService() {
+        HeadcountCounters headcountCounters = new HeadcountCounters(
+                sqlSessionTemplate.getMapper(ReportsMapper.class), new ConcurrentTaskScheduler());
+        return new EmployeesService(new EmployeesRepository(sqlSessionTemplate.getMapper(EmployeesMapper.class), singleFlight()),
+                new DepartmentsRepository(sqlSessionTemplate.getMapper(DepartmentsMapper.class), singleFlight()),
+                headcountCounters, changeLog());
+    }
+
+    DepartmentService departmentService() {
+        return new DepartmentService(new DepartmentsRepository(sqlSessionTemplate.getMapper(DepartmentsMapper.class), singleFlight()),
+                employeesService(), changeLog());
+    }
+
+    // 同時読み込みのまとめは無効にする (ベンチマークは1件ずつの SQL の速さを測る)
+    private static SingleFlight singleFlight() {
+        return new SingleFlight(false, new SimpleMeterRegistry());
+    }
+
+    // 変更履歴 (ベンチマークは読み取りだけなので、実際には書き込まれない)
+    private ChangeLog changeLog() {
+        ChangeLogRepository changeLogRepository = new ChangeLogRepository(
+                sqlSessionTemplate.getMapper(ChangeLogMapper.class), new JdbcTemplate(dataSource), Duration.ofSeconds(5));
+        return new ChangeLog(changeLogRepository, new ChangeFeed(changeLogRepository, Runnable::run, Duration.ofMinutes(30)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataSource.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.hrsystem.benchmark;
+
+import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.EmployeeListPage;
+import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.service.DepartmentService;
+import com.example.hrsystem.service.EmployeesService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 従業員一覧画面 (WebController.listEmployees) のデータ作りを測る
+// legacyMapJoin: 以前の実装。従業員と部署を全件読んで、Java 側の Map で部署名を結合する
+// legacyMapJoinInMemory: 上のうち Map での結合部分だけ (DB 読み込みを除く)
+// projectionPage: 現在の実装。SQL で JOIN した1ページ分 (50件) だけを読む
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeListJoinBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private EmployeesService employeesService;
+    private DepartmentService departmentService;
+    private List<Employees> loadedEmployees;
+    private List<Departments> loadedDepartments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.start(rows);
+        employeesService = database.employeesService();
+        departmentService = database.departmentService();
+        loadedEmployees = employeesService.findAll();
+        loadedDepartments = departmentService.findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> legacyMapJoin() {
+        return joinDepartmentNames(employeesService.findAll(), departmentService.findAll());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> legacyMapJoinInMemory() {
+        return joinDepartmentNames(loadedEmployees, loadedDepartments);
+    }
+
+    @Benchmark
+    public EmployeeListPage projectionPage() {
+        return employeesService.findListPage(1, EmployeesService.DEFAULT_LIST_PAGE_SIZE, "id", "asc");
+    }
+
+    // 以前の WebController.listEmployees の結合処理 (比較用にそのまま残したもの)
+    private static List<Map<String, Object>> joinDepartmentNames(List<Employees> employees,
+                                                                 List<Departments> departments) {
+
+        Map<Long, String> departmentMap = new HashMap<>();
+        for (Departments dept : departments) {
+            departmentMap.put(dept.getId(), dept.getName());
+        }
+
+        List<Map<String, Object>> employeeDisplayList = new ArrayList<>();
+        for (Employees emp : employees) {
+            Map<String, Object> displayItem = new HashMap<>();
+            displayItem.put("id", emp.getId());
+            displayItem.put("lastName", emp.getLastName());
+            displayItem.put("firstName", emp.getFirstName());
+            displayItem.put("email", emp.getEmail());
+            displayItem.put("position", emp.getPosition());
+            displayItem.put("hireDate", emp.getHireDate());
+            displayItem.put("departmentId", emp.getDepartmentId());
+            if (emp.getDepartmentId() != null) {
+                displayItem.put("departmentName", departmentMap.getOrDefault(emp.getDepartmentId(), "不明"));
+            } else {
+                displayItem.put("departmentName", "未所属");
+            }
+            employeeDisplayList.add(displayItem);
+        }
+        return employeeDisplayList;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.hrsystem.benchmark;
+
+import com.example.hrsystem.dto.EmployeeListItem;
+import com.example.hrsystem.dto.EmployeeListPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// employees/list.html (従業員一覧画面) の Thymeleaf 描画を測る (DB は使わない)
+// テンプレートはキャッシュ有効 (本番と同じ) で、1ページ分の行を描画する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeListRenderBenchmark {
+
+    // 1ページの件数 (既定と上限)
+    @Param({"50", "200"})
+    public int size;
+
+    private SpringTemplateEngine templateEngine;
+    private IWebExchange exchange;
+    private Map<String, Object> variables;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        MockServletContext servletContext = new MockServletContext();
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/web/employees");
+        exchange = JakartaServletWebApplication.buildApplication(servletContext)
+                .buildExchange(request, new MockHttpServletResponse());
+
+        List<EmployeeListItem> items = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            items.add(new EmployeeListItem((long) i, "山田" + i, "太郎" + i, "user" + i + "@example.com",
+                    (long) (i % 10 + 1), "部署" + (i % 10 + 1), "主任", LocalDate.of(2020, 4, 1).plusDays(i)));
+        }
+        EmployeeListPage page = new EmployeeListPage(items, 2, size, "id", "asc", true);
+        variables = Map.of("employees", items, "page", page);
+    }
+
+    @Benchmark
+    public String render() {
+        StringWriter writer = new StringWriter(64 * 1024);
+        templateEngine.process("employees/list", new WebContext(exchange, Locale.JAPAN, variables), writer);
+        return writer.toString();
+    }
+}
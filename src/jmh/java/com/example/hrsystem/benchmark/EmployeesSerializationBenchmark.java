@@ -0,0 +1,90 @@
+package com.example.hrsystem.benchmark;
+
+import com.example.hrsystem.dto.Employees;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// List<Employees> の JSON 変換を測る (DB は使わない)
+// writeValueAsBytes: GET /api/employees のように一括で変換する場合
+// streamToOutput: GET /api/employees/stream のように1件ずつ出力先に書く場合
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeesSerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Employees> employees;
+    private ObjectMapper objectMapper;
+    private ObjectWriter streamingWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Spring Boot の既定 (日付は ISO 形式の文字列) に合わせる
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        streamingWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        OffsetDateTime now = OffsetDateTime.of(2024, 4, 1, 9, 0, 0, 0, ZoneOffset.UTC);
+        employees = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Employees employee = new Employees();
+            employee.setId((long) i);
+            employee.setLastName("山田" + i);
+            employee.setFirstName("太郎" + i);
+            employee.setEmail("user" + i + "@example.com");
+            employee.setDepartmentId((long) (i % 10 + 1));
+            employee.setPosition("主任");
+            employee.setHireDate(LocalDate.of(2020, 4, 1).plusDays(i % 1000));
+            employee.setVersion(0L);
+            employee.setCreatedAt(now);
+            employee.setUpdatedAt(now);
+            employees.add(employee);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public void streamToOutput() throws IOException {
+        try (JsonGenerator generator = streamingWriter.createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (Employees employee : employees) {
+                streamingWriter.writeValue(generator, employee);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
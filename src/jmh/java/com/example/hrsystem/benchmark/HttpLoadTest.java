@@ -0,0 +1,109 @@
+package com.example.hrsystem.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 起動中のアプリケーションに対する HTTP 負荷テスト (同時クライアント数を固定したクローズドループ)
+// 各クライアントはレスポンスを受け取ったらすぐ次のリクエストを送る。ウォームアップ後の処理件数とレイテンシを出す
+// 通常のスレッドプールと仮想スレッド (virtual-threads プロファイル) で同じコマンドを実行して比べる
+//
+// 引数: <URL> [同時クライアント数=1000] [計測秒数=30] [ウォームアップ秒数=10]
+// 例:   ./mvnw -Pjmh test-compile exec:exec -Djmh.main=com.example.hrsystem.benchmark.HttpLoadTest \
+//           -Djmh.args="http://localhost:8080/api/employees/search?departmentId=1&limit=50 1000 30"
+public final class HttpLoadTest {
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final long measureFrom;
+    private final long deadline;
+    private final CountDownLatch finished;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    private HttpLoadTest(URI uri, int clients, long measureFrom, long deadline) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        this.measureFrom = measureFrom;
+        this.deadline = deadline;
+        this.finished = new CountDownLatch(clients);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        if (args.length == 0) {
+            System.err.println("使い方: HttpLoadTest <URL> [同時クライアント数=1000] [計測秒数=30] [ウォームアップ秒数=10]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        long now = System.nanoTime();
+        long measureFrom = now + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        HttpLoadTest test = new HttpLoadTest(uri, clients, measureFrom, deadline);
+        for (int i = 0; i < clients; i++) {
+            test.send();
+        }
+        test.finished.await();
+        test.report(uri, clients, seconds);
+    }
+
+    // 1リクエスト送り、終わったら (計測時間内なら) 次を送る
+    private void send() {
+        long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long end = System.nanoTime();
+                    if (start >= measureFrom && end <= deadline) {
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.increment();
+                        } else {
+                            completed.increment();
+                            latencies.add(end - start);
+                        }
+                    }
+                    if (end < deadline) {
+                        send();
+                    } else {
+                        finished.countDown();
+                    }
+                });
+    }
+
+    private void report(URI uri, int clients, int seconds) {
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+
+        System.out.printf("url=%s clients=%d duration=%ds%n", uri, clients, seconds);
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n",
+                completed.sum(), errors.sum(), completed.sum() / (double) seconds);
+        System.out.printf("latency p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
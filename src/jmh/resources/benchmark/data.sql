@@ -0,0 +1,16 @@
+-- ベンチマーク用のテストデータ
+-- 従業員数は :rows を置き換えて指定する。部署は10件で、1割の従業員は未所属にする
+INSERT INTO departments (name, location)
+SELECT '部署' || g, '東京' FROM generate_series(1, 10) AS g;
+
+INSERT INTO employees (last_name, first_name, email, department_id, position, hire_date)
+SELECT '山田' || g,
+       '太郎' || g,
+       'user' || g || '@example.com',
+       CASE WHEN g % 10 = 0 THEN NULL ELSE g % 10 END,
+       (ARRAY['部長', '課長', '主任', '一般'])[1 + g % 4],
+       DATE '2010-01-01' + (g % 5000)
+FROM generate_series(1, :rows) AS g;
+
+ANALYZE departments;
+ANALYZE employees;
@@ -0,0 +1,21 @@
+-- ベンチマーク用のテーブル定義 (本番のテーブルと同じ形)
+-- この後に src/main/resources/db/*.sql を番号順に流して、追加の列やインデックスをそろえる
+CREATE TABLE departments (
+    id         BIGSERIAL PRIMARY KEY,
+    name       VARCHAR(15) NOT NULL,
+    location   VARCHAR(10) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE employees (
+    id            BIGSERIAL PRIMARY KEY,
+    last_name     VARCHAR(10)  NOT NULL,
+    first_name    VARCHAR(10)  NOT NULL,
+    email         VARCHAR(100) NOT NULL UNIQUE,
+    department_id BIGINT REFERENCES departments (id),
+    position      VARCHAR(15)  NOT NULL,
+    hire_date     DATE         NOT NULL,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
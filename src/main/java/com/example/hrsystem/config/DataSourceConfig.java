@@ -0,0 +1,94 @@
+package com.example.hrsystem.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class DataSourceConfig {
+
+    // プライマリのコネクションプール (spring.datasource.* と spring.datasource.hikari.* の設定で作る)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadReplicas.PRIMARY_POOL);
+        return dataSource;
+    }
+
+    // MyBatis とトランザクションが使う DataSource
+    // 接続は最初の SQL を投げるときまで取らない (キャッシュに当たった読み込みはプールに触らない)
+    // その時点で読み取り専用のトランザクションなら、レプリカ (有効な場合) から取る
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ObjectProvider<ReadReplicas> readReplicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        // 既定値を調べるためだけに接続を取らないように指定しておく (Postgres の既定は READ COMMITTED)
+        dataSource.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        readReplicas.ifAvailable(dataSource::setReadOnlyDataSource);
+        return dataSource;
+    }
+
+    // リードレプリカ (hr.datasource.replica.enabled=true のとき)
+    // プールの大きさとリーク検出の閾値はプライマリと同じ。プール名は replica-1, replica-2, ... (hikaricp.* のメトリクスの pool タグ)
+    @Bean
+    @ConditionalOnProperty(name = "hr.datasource.replica.enabled", havingValue = "true")
+    public ReadReplicas readReplicas(HikariDataSource primaryDataSource, MeterRegistry meterRegistry,
+                                     @Value("${hr.datasource.replica.urls:}") List<String> urls,
+                                     @Value("${hr.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                     @Value("${hr.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                     @Value("${hr.datasource.replica.max-lag:5s}") Duration maxLag,
+                                     @Value("${hr.datasource.replica.connection-timeout:2s}") Duration connectionTimeout) {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.strip());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            config.setLeakDetectionThreshold(primaryDataSource.getLeakDetectionThreshold());
+            config.setReadOnly(true);
+            // 接続を取れないときは早めにあきらめてプライマリから読む (遅延の確認も止まっているレプリカで待たされない)
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            // レプリカが止まっていてもアプリケーションは起動する (遅延を確認できるまではプライマリから読む)
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalStateException("hr.datasource.replica.urls にレプリカの JDBC URL を指定してください");
+        }
+
+        return new ReadReplicas(primaryDataSource, replicas, maxLag, meterRegistry);
+    }
+
+    // 書き込んだクライアントはしばらくプライマリから読む
+    @Bean
+    @ConditionalOnProperty(name = "hr.datasource.replica.enabled", havingValue = "true")
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${hr.datasource.replica.read-your-writes-window:10s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.hrsystem.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// Mapper の SQL ごとの実行時間・件数を Micrometer に記録する MyBatis プラグイン
+// mybatis.statement       : 実行時間 (statement=EmployeesMapper.findAllEmployees, type=SELECT, outcome=SUCCESS|ERROR)
+// mybatis.statement.rows  : SELECT で返した行数 / 更新系で変更した行数
+// StatementHandler を横取りするので、コネクションプールからの取得待ちは含まない (hikaricp.connections.acquire で別に見る)
+// バッチ実行 (BATCH の SqlSession) は送信時にまとめて実行されるため対象外
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(MybatisMetricsInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+    // これより時間のかかった SQL はログに出す
+    private final long slowThresholdNanos;
+    // 毎回 Meter を探さないように SQL ごとに持っておく
+    private final ConcurrentMap<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public MybatisMetricsInterceptor(MeterRegistry meterRegistry,
+                                     @Value("${hr.mybatis.slow-statement-threshold:500ms}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+
+        MappedStatement mappedStatement = (MappedStatement) SystemMetaObject
+                .forObject(invocation.getTarget()).getValue("delegate.mappedStatement");
+        StatementMeters statementMeters = meters.computeIfAbsent(mappedStatement.getId(),
+                id -> new StatementMeters(shortName(id), mappedStatement.getSqlCommandType().name()));
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            statementMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        statementMeters.success.record(elapsed, TimeUnit.NANOSECONDS);
+
+        // カーソルはここでは件数が分からないので記録しない
+        long rows = -1;
+        if (result instanceof List<?> list) {
+            rows = list.size();
+        } else if (result instanceof Integer count) {
+            rows = count;
+        }
+        if (rows >= 0) {
+            statementMeters.rows.record(rows);
+        }
+
+        if (elapsed >= slowThresholdNanos) {
+            String sql = ((StatementHandler) invocation.getTarget()).getBoundSql().getSql();
+            log.warn("遅い SQL: {} {}ms rows={} sql={}", statementMeters.name,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), rows, oneLine(sql));
+        }
+
+        return result;
+    }
+
+    // com.example.hrsystem.mapper.EmployeesMapper.findAllEmployees -> EmployeesMapper.findAllEmployees
+    private static String shortName(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+
+    // ログを1行にまとめるため、改行や連続する空白を詰める
+    private static String oneLine(String sql) {
+        return sql.replaceAll("\\s+", " ").strip();
+    }
+
+    // SQL ごとの Meter
+    private final class StatementMeters {
+
+        private final String name;
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+
+        private StatementMeters(String name, String type) {
+            this.name = name;
+            this.success = timer(name, type, "SUCCESS");
+            this.error = timer(name, type, "ERROR");
+            this.rows = DistributionSummary.builder("mybatis.statement.rows")
+                    .description("SQL ごとの取得・更新行数")
+                    .tag("statement", name)
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String name, String type, String outcome) {
+            return Timer.builder("mybatis.statement")
+                    .description("SQL ごとの実行時間 (結果の組み立てを含む)")
+                    .tag("statement", name)
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.hrsystem.config;
+
+// このスレッドの読み込みをプライマリに固定する (try-with-resources で閉じるまで)
+// ReadReplicas は固定中のスレッドにレプリカの接続を渡さない。固定は接続を取る時点 (最初の SQL) で効く
+// レプリカを使わない構成では何もしない (もともとすべてプライマリから読む)
+//
+// 書き込んだクライアントの読み込み (ReadYourWritesFilter) と、
+// キャッシュに入れる読み込み (遅れたレプリカの古い行をキャッシュに入れ直さないように) で使う
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    // 固定する (すでに固定中なら、閉じても外さない)
+    public static Pin pin() {
+        if (PINNED.get() != null) {
+            return () -> { };
+        }
+        PINNED.set(Boolean.TRUE);
+        return PINNED::remove;
+    }
+
+    // このスレッドがプライマリに固定中か
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    // プライマリへの固定 (close は例外を投げない)
+    @FunctionalInterface
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
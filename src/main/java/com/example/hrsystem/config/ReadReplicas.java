@@ -0,0 +1,155 @@
+package com.example.hrsystem.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 読み取り専用トランザクション (@Transactional(readOnly = true)) の接続先
+// LazyConnectionDataSourceProxy の readOnlyDataSource に設定し、最初の SQL を投げるときにここから接続を取る
+// レプリカは順番に使い、遅延が max-lag を超えたもの・遅延を確認できないものは飛ばす。使えるレプリカがなければプライマリから読む
+// プライマリに固定中のスレッド (PrimaryReads) にはプライマリの接続を渡す
+//
+// hr.datasource.replica.lag (pool=...) にレプリカごとの遅延 (秒。確認できなければ NaN)、
+// hr.datasource.read-only.connections (pool=...) に読み取り専用の接続をどのプールから取ったかを記録する
+public class ReadReplicas extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicas.class);
+
+    static final String PRIMARY_POOL = "primary";
+
+    // レプリカの遅延 (秒)
+    // 受け取った WAL をすべて適用し終えていれば 0 (プライマリに更新がない間に遅延が増えていかないように)
+    // レプリカでない DB (pg_is_in_recovery() が false) は 0 とみなす (ローカルで2つの Postgres を立てて試す場合など)
+    static final String LAG_SQL = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final Counter primaryConnections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicas(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.primaryConnections = connections(meterRegistry, PRIMARY_POOL);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource, connections(meterRegistry, name));
+            Gauge.builder("hr.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("レプリカの遅延 (確認できなければ NaN)")
+                    .baseUnit("seconds")
+                    .tag("pool", name)
+                    .register(meterRegistry);
+            this.replicas.add(replica);
+        });
+    }
+
+    private static Counter connections(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("hr.datasource.read-only.connections")
+                .description("読み取り専用トランザクションに渡した接続の数")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    // 使えるレプリカから順番に接続を取る。なければ (またはプライマリに固定中なら) プライマリから取る
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!PrimaryReads.isPinned() && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!(replica.lagSeconds <= maxLagSeconds)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.connections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    // 次の確認までは使わない
+                    replica.lagSeconds = Double.NaN;
+                    log.warn("レプリカ {} に接続できません。次の確認までプライマリから読みます: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("レプリカへの接続はプールの設定のユーザーで行います");
+    }
+
+    // レプリカごとの遅延を確認する
+    @Scheduled(fixedDelayString = "${hr.datasource.replica.lag-check-interval:2s}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.lagSeconds <= maxLagSeconds;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                replica.lagSeconds = resultSet.getDouble(1);
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.NaN;
+                if (wasAvailable) {
+                    log.warn("レプリカ {} の遅延を確認できません。確認できるまでプライマリから読みます: {}", replica.name, e.getMessage());
+                }
+                continue;
+            }
+            boolean available = replica.lagSeconds <= maxLagSeconds;
+            if (wasAvailable && !available) {
+                log.warn("レプリカ {} の遅延が {} 秒あるため、追いつくまでプライマリから読みます", replica.name, replica.lagSeconds);
+            } else if (!wasAvailable && available) {
+                log.info("レプリカ {} から読み込みます (遅延 {} 秒)", replica.name, replica.lagSeconds);
+            }
+        }
+    }
+
+    // レプリカのプールを閉じる (プライマリのプールは Bean として閉じられる)
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        // 最初の確認までは使わない
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String name, DataSource dataSource, Counter connections) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+}
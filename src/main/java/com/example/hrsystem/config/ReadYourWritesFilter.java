@@ -0,0 +1,65 @@
+package com.example.hrsystem.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// 書き込んだクライアントには、しばらくプライマリから読ませる (read-your-writes)
+// GET / HEAD 以外のリクエストはリクエストの間プライマリに固定し、window の間有効なクッキーを付ける
+// クッキーが有効な間は、同じクライアントの GET もプライマリから読む (書き込みがレプリカに届くまでの間)
+// 別スレッドで書き出すレスポンス (エクスポート・SSE) の読み込みは固定されない
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "hr-read-primary";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String method = request.getMethod();
+        boolean write = !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+        if (write) {
+            // 本文を書き始めるとヘッダーを足せないので、処理の前に付ける (失敗した書き込みでも害はない)
+            long until = System.currentTimeMillis() + window.toMillis();
+            String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_NAME, String.valueOf(until))
+                    .path(path).maxAge(window).httpOnly(true).sameSite("Lax").build().toString());
+        }
+
+        if (!write && !wroteRecently(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (PrimaryReads.Pin pin = PrimaryReads.pin()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    // クッキーの期限 (クッキーの Max-Age に頼らず、こちらでも確かめる)
+    private static boolean wroteRecently(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.hrsystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled の定期実行を有効にする
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
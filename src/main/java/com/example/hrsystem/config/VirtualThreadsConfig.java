@@ -0,0 +1,22 @@
+package com.example.hrsystem.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+// 仮想スレッドのモード (spring.threads.virtual.enabled=true、virtual-threads プロファイル) の起動チェック
+// Spring Boot は Java 21 未満だとこの設定を黙って無視するので、接続数の上限だけを上げた通常のスレッドプールで動いてしまう
+// そうならないように、Java 21 未満では起動を止める
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    static final int MIN_JAVA_VERSION = 21;
+
+    public VirtualThreadsConfig() {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("仮想スレッド (spring.threads.virtual.enabled=true / virtual-threads プロファイル) は Java "
+                    + MIN_JAVA_VERSION + " 以上が必要です (実行中の Java: " + javaVersion + ")");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.hrsystem.controller;
+
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.service.ChangeFeed;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+// 変更履歴 API (他システムの差分同期用)
+// 全件を取り直す代わりに、前回受け取った seq より後の変更だけを取得する
+@RestController
+@RequestMapping("/api/changes")
+public class ChangesController {
+
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final ChangeFeed changeFeed;
+
+    public ChangesController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    // since より後の変更を seq 順に (次ページがあれば Link / X-Next-Cursor ヘッダー)
+    @GetMapping
+    public ResponseEntity<List<ChangeEvent>> changes(@RequestParam(defaultValue = "0") long since,
+                                                     @RequestParam(required = false) Integer limit){
+
+        int pageSize = limit != null ? limit : ChangeFeed.DEFAULT_LIMIT;
+        List<ChangeEvent> changes = changeFeed.findSince(since, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        // 件数がちょうど埋まった時だけ続きがあるとみなす
+        if (changes.size() == pageSize) {
+            long nextCursor = changes.get(changes.size() - 1).seq();
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("since", nextCursor)
+                    .replaceQueryParam("limit", pageSize)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header(EmployeesController.NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        }
+
+        return response.body(changes);
+    }
+
+    // 変更を Server-Sent Events で受け取り続ける (イベント名 change、id は seq)
+    // 再接続時はブラウザの EventSource が Last-Event-ID を付けるので、その続きから送る
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                             @RequestParam(required = false) Long since){
+
+        Long from = since;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                from = Long.valueOf(lastEventId.strip());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Last-Event-ID の形式が正しくありません: " + lastEventId);
+            }
+        }
+
+        return changeFeed.subscribe(from);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.hrsystem.controller;
+
+import com.example.hrsystem.dto.Tombstone;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+// 差分同期 (updatedSince) と削除の記録のページ用
+// 件数がちょうど埋まった時だけ次ページがあるとみなし、Link (rel="next") と X-Next-Cursor ヘッダーを付ける
+final class DeltaPages {
+
+    // 次ページの updatedSince を返すヘッダー (X-Next-Cursor は after に渡す値)
+    static final String NEXT_UPDATED_SINCE_HEADER = "X-Next-Updated-Since";
+
+    private DeltaPages() {
+    }
+
+    // (updatedAt, id) のキーセットで取ったページ
+    static <T> ResponseEntity<List<T>> updatedSince(List<T> rows, int pageSize,
+                                                   Function<T, OffsetDateTime> updatedAt, Function<T, Long> id) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            T last = rows.get(rows.size() - 1);
+            // URL に + が入らないよう UTC (Z) で渡す
+            String nextSince = updatedAt.apply(last).toInstant().toString();
+            long nextCursor = id.apply(last);
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("updatedSince", nextSince)
+                    .replaceQueryParam("after", nextCursor)
+                    .replaceQueryParam("limit", pageSize)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header(EmployeesController.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                    .header(NEXT_UPDATED_SINCE_HEADER, nextSince);
+        }
+
+        return response.body(rows);
+    }
+
+    // 削除の記録 (seq のキーセット)
+    static ResponseEntity<List<Tombstone>> tombstones(List<Tombstone> tombstones, OffsetDateTime since, int pageSize) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (tombstones.size() == pageSize) {
+            long nextCursor = tombstones.get(tombstones.size() - 1).seq();
+            // since も UTC (Z) で渡し直す (+09:00 のような値が二重にエンコードされないように)
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("since", since.toInstant().toString())
+                    .replaceQueryParam("after", nextCursor)
+                    .replaceQueryParam("limit", pageSize)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header(EmployeesController.NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        }
+
+        return response.body(tombstones);
+    }
+}
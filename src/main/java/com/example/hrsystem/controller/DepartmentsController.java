@@ -1,16 +1,26 @@
 package com.example.hrsystem.controller;
 
+import com.example.hrsystem.dto.CopyImportResult;
 import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.Tombstone;
+import com.example.hrsystem.service.BulkImportService;
 import com.example.hrsystem.service.DepartmentService;
 import org.apache.ibatis.annotations.Update;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @RestController
@@ -18,14 +28,28 @@ import java.util.List;
 public class DepartmentsController {
 
     private final DepartmentService departmentService;
+    private final BulkImportService bulkImportService;
 
-    public DepartmentsController(DepartmentService departmentService) {
+    public DepartmentsController(DepartmentService departmentService, BulkImportService bulkImportService) {
         this.departmentService = departmentService;
+        this.bulkImportService = bulkImportService;
     }
 
     // 一覧
+    // updatedSince を付けた場合は、その日時以降に追加・更新された部署だけを (updatedAt, id) 順に返す (差分同期)
+    // 次ページがある場合は Link (rel="next") と X-Next-Cursor / X-Next-Updated-Since ヘッダーを返す
     @GetMapping
-    public ResponseEntity<List<Departments>> findAll() {
+    public ResponseEntity<List<Departments>> findAll(@RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedSince,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer limit) {
+
+        if (updatedSince != null) {
+            int pageSize = limit != null ? limit : DepartmentService.DEFAULT_PAGE_SIZE;
+            List<Departments> departments = departmentService.findUpdatedSince(updatedSince, after, pageSize);
+
+            return DeltaPages.updatedSince(departments, pageSize, Departments::getUpdatedAt, Departments::getId);
+        }
 
         List<Departments> departments = departmentService.findAll();
 
@@ -36,6 +60,19 @@ public class DepartmentsController {
 
     }
 
+    // 差分同期用: since 以降に削除された部署 (seq 順。次ページは after に X-Next-Cursor を渡す)
+    @GetMapping("/deleted")
+    public ResponseEntity<List<Tombstone>> findDeleted(@RequestParam
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime since,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+
+        int pageSize = limit != null ? limit : DepartmentService.DEFAULT_PAGE_SIZE;
+        List<Tombstone> tombstones = departmentService.findDeletedSince(since, after, pageSize);
+
+        return DeltaPages.tombstones(tombstones, since, pageSize);
+    }
+
     // 追加
     @PostMapping
     public ResponseEntity<Departments> save(@RequestBody Departments departments,
@@ -54,18 +91,49 @@ public class DepartmentsController {
 
     }
 
+    // COPY による高速取り込み (CSVをそのままリクエストボディで送る場合)
+    // 部署名が一致する部署は所在地を更新、それ以外は追加する
+    @PostMapping(value = "/bulk/copy", consumes = "text/csv")
+    public ResponseEntity<CopyImportResult> copyCsv(InputStream csv) {
+
+        CopyImportResult result = bulkImportService.copyDepartmentsCsv(csv);
+
+        return ResponseEntity.ok(result);
+    }
+
+    // COPY による高速取り込み (CSVファイルのアップロード)
+    @PostMapping(value = "/bulk/copy", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CopyImportResult> copyCsvFile(@RequestParam("file") MultipartFile file) throws IOException {
+
+        try (InputStream csv = file.getInputStream()) {
+            CopyImportResult result = bulkImportService.copyDepartmentsCsv(csv);
+
+            return ResponseEntity.ok(result);
+        }
+    }
+
     // 単品表示
+    // ETag に version を返す。If-None-Match が一致すれば 304 になる
     @GetMapping("/{id}")
     public ResponseEntity<Departments> findById(@PathVariable long id) {
         Departments departments = departmentService.findById(id);
 
-        return ResponseEntity.ok(departments);
+        return ResponseEntity.ok().eTag(VersionETags.of(departments.getVersion())).body(departments);
     }
 
     // 削除
+    // 所属する従業員がいる場合は 409。mode=reassign (reassignTo) なら別の部署へ、mode=unassign なら未所属にしてから削除する
     @DeleteMapping("/{id}")
-    public ResponseEntity<Departments> deleteById(@PathVariable long id) {
-        departmentService.deleteById(id);
+    public ResponseEntity<Departments> deleteById(@PathVariable long id,
+                                                  @RequestParam(required = false) String mode,
+                                                  @RequestParam(required = false) Long reassignTo) {
+        if (mode == null && reassignTo == null) {
+            departmentService.deleteById(id);
+        } else {
+            DepartmentService.DeleteMode deleteMode =
+                    mode != null ? DepartmentService.DeleteMode.of(mode) : DepartmentService.DeleteMode.RESTRICT;
+            departmentService.deleteById(id, deleteMode, reassignTo);
+        }
 
         // 削除成功204 noContentを返す body部が今回ないのでbuildを付ける
 //        public static ResponseEntity.HeadersBuilder<?> noContent() {
@@ -75,13 +143,20 @@ public class DepartmentsController {
     }
 
     // 更新
+    // If-Match (GET で受け取った ETag) を付けると、その版のままのときだけ更新する。版が古ければ 412
     @PutMapping("/{id}")
     public ResponseEntity<Departments> updateById(@PathVariable long id,
-                                                  @RequestBody Departments departments){
+                                                  @RequestBody Departments departments,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+
+        Long version = VersionETags.parseIfMatch(ifMatch);
+        if (version != null){
+            departments.setVersion(version);
+        }
 
         Departments updateDepartments = departmentService.update(id,departments);
 
-        return ResponseEntity.ok(updateDepartments);
+        return ResponseEntity.ok().eTag(VersionETags.of(updateDepartments.getVersion())).body(updateDepartments);
 
     }
 }
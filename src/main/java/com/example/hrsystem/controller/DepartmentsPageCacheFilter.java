@@ -0,0 +1,86 @@
+package com.example.hrsystem.controller;
+
+import com.example.hrsystem.service.DepartmentService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// 部署一覧画面 (/web/departments) の HTML をそのまま覚えておくフィルター
+// 部署データの版 (DepartmentService.dataVersion) が変わらない間は、Thymeleaf で作り直さずに同じ HTML を返す
+// HTML の内容から強い ETag を作るので、ブラウザが If-None-Match で聞き直してきたら 304 だけを返す (SQL も描画もなし)
+// メッセージ付き (?delete_error など) の表示は毎回作る
+// 版はこのサーバーの中だけで数えるので、他のサーバーでの更新は ttl (部署キャッシュと同じ長さ) が過ぎてから反映される
+@Component
+public class DepartmentsPageCacheFilter extends OncePerRequestFilter {
+
+    private static final String PATH = "/web/departments";
+
+    private final DepartmentService departmentService;
+    private final long ttlNanos;
+    // 覚えている HTML (画面は1つなので1件だけ)
+    private volatile RenderedPage page;
+
+    public DepartmentsPageCacheFilter(DepartmentService departmentService,
+                                      @Value("${hr.web.departments-page-ttl:10m}") Duration ttl) {
+        this.departmentService = departmentService;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method))
+                || request.getQueryString() != null
+                || !PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long version = departmentService.dataVersion();
+        RenderedPage cached = page;
+        if (cached != null && cached.version() == version && System.nanoTime() - cached.renderedAt() < ttlNanos) {
+            // 毎回 ETag で確かめてもらう (部署が変わったらすぐ新しい画面になるように)
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            if (new ServletWebRequest(request, response).checkNotModified(cached.eTag())) {
+                return;
+            }
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.html().length);
+            response.getOutputStream().write(cached.html());
+            return;
+        }
+
+        // 版が変わっていれば、いつもどおり画面を作って覚えておく
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpStatus.OK.value()) {
+            byte[] html = wrapper.getContentAsByteArray();
+            String eTag = "\"0" + DigestUtils.md5DigestAsHex(html) + "\"";
+            wrapper.setHeader(HttpHeaders.ETAG, eTag);
+            wrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            // 描画中に部署が更新された場合は、古いかもしれないので覚えない
+            if (departmentService.dataVersion() == version) {
+                page = new RenderedPage(version, System.nanoTime(), html, wrapper.getContentType(), eTag);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private record RenderedPage(long version, long renderedAt, byte[] html, String contentType, String eTag) {
+    }
+}
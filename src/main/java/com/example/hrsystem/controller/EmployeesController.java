@@ -1,31 +1,194 @@
 package com.example.hrsystem.controller;
 
+import com.example.hrsystem.dto.BulkDeleteRequest;
+import com.example.hrsystem.dto.BulkImportResult;
+import com.example.hrsystem.dto.BulkMoveRequest;
+import com.example.hrsystem.dto.BulkPositionRequest;
+import com.example.hrsystem.dto.BulkUpdateResult;
+import com.example.hrsystem.dto.CopyImportResult;
+import com.example.hrsystem.dto.EmployeeLookupResult;
+import com.example.hrsystem.dto.EmployeeMatch;
+import com.example.hrsystem.dto.EmployeeSearchCriteria;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.dto.Tombstone;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.service.BulkImportService;
+import com.example.hrsystem.service.EmployeesExportService;
 import com.example.hrsystem.service.EmployeesService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeesController {
 
+    // 次ページのカーソル (最後のid) を返すヘッダー
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final EmployeesService employeesService;
+    private final BulkImportService bulkImportService;
+    private final EmployeesExportService employeesExportService;
+    // ストリーミング用。1行ごとに flush しないようにしておく
+    private final ObjectWriter streamingWriter;
 
-    public EmployeesController(EmployeesService employeesService) {
+    public EmployeesController(EmployeesService employeesService,
+                               BulkImportService bulkImportService,
+                               EmployeesExportService employeesExportService,
+                               ObjectMapper objectMapper) {
         this.employeesService = employeesService;
+        this.bulkImportService = bulkImportService;
+        this.employeesExportService = employeesExportService;
+        this.streamingWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     // 一覧
+    // limit / after を付けた場合は id のキーセットでページングする
+    // 次ページがある場合は Link (rel="next") と X-Next-Cursor ヘッダーを返す
+    // updatedSince を付けた場合は、その日時以降に追加・更新された従業員だけを (updatedAt, id) 順に返す (差分同期)
     @GetMapping
-    public ResponseEntity<List<Employees>> findAll(){
+    public ResponseEntity<List<Employees>> findAll(@RequestParam(required = false) Integer limit,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedSince){
+
+        if (updatedSince != null) {
+            int pageSize = limit != null ? limit : EmployeesService.DEFAULT_PAGE_SIZE;
+            List<Employees> employees = employeesService.findUpdatedSince(updatedSince, after, pageSize);
+
+            return DeltaPages.updatedSince(employees, pageSize, Employees::getUpdatedAt, Employees::getId);
+        }
+
+        if (limit == null && after == null) {
+            List<Employees> employees = employeesService.findAll();
+
+            return ResponseEntity.ok(employees);
+        }
+
+        int pageSize = limit != null ? limit : EmployeesService.DEFAULT_PAGE_SIZE;
+        List<Employees> employees = employeesService.findPage(after, pageSize);
+
+        return keysetPage(employees, pageSize);
+
+    }
+
+    // id を指定して複数件取得 (?ids=1,2,3)
+    // 1件ずつ GET /{id} を呼ぶ代わりに1回で引く。結果は指定した順で、見つからなかった id は notFound に入る
+    @GetMapping(params = "ids")
+    public ResponseEntity<EmployeeLookupResult> findByIds(@RequestParam List<Long> ids){
+
+        EmployeeLookupResult result = employeesService.findByIds(ids);
 
-        List<Employees> employees = employeesService.findAll();
+        return ResponseEntity.ok(result);
 
-        return ResponseEntity.ok(employees);
+    }
+
+    // id を指定して複数件取得 (URL に収まらない件数向けに、id の JSON 配列をボディで送る)
+    @PostMapping("/lookup")
+    public ResponseEntity<EmployeeLookupResult> lookup(@RequestBody List<Long> ids){
+
+        EmployeeLookupResult result = employeesService.findByIds(ids);
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // 差分同期用: since 以降に削除された従業員 (seq 順。次ページは after に X-Next-Cursor を渡す)
+    @GetMapping("/deleted")
+    public ResponseEntity<List<Tombstone>> findDeleted(@RequestParam
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime since,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit){
+
+        int pageSize = limit != null ? limit : EmployeesService.DEFAULT_PAGE_SIZE;
+        List<Tombstone> tombstones = employeesService.findDeletedSince(since, after, pageSize);
+
+        return DeltaPages.tombstones(tombstones, since, pageSize);
+    }
+
+    // 条件検索
+    // departmentId / position / hireDateFrom / hireDateTo / name (姓・名の前方一致) で絞り込み、id のキーセットでページングする
+    // 次ページのヘッダーは一覧 (limit / after) と同じ
+    @GetMapping("/search")
+    public ResponseEntity<List<Employees>> search(@ModelAttribute EmployeeSearchCriteria criteria){
+
+        int pageSize = criteria.getLimit() != null ? criteria.getLimit() : EmployeesService.DEFAULT_PAGE_SIZE;
+        List<Employees> employees = employeesService.search(criteria);
+
+        return keysetPage(employees, pageSize);
+
+    }
+
+    // 名前のあいまい検索 (入力補完用)
+    // 「姓 名」に対する部分一致・類似度で、近い順に上位 limit 件を返す
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<EmployeeMatch>> typeahead(@RequestParam(defaultValue = "") String q,
+                                                         @RequestParam(defaultValue = "" + EmployeesService.DEFAULT_TYPEAHEAD_LIMIT) int limit){
+
+        return ResponseEntity.ok(employeesService.typeahead(q, limit));
+
+    }
+
+    // キーセットページングのレスポンスを作る
+    // 次ページの URL は現在のクエリの after / limit だけを差し替えたもの (検索条件はそのまま引き継ぐ)
+    private ResponseEntity<List<Employees>> keysetPage(List<Employees> employees, int pageSize){
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        // 件数がちょうど埋まった時だけ次ページがあるとみなす
+        if (employees.size() == pageSize) {
+            long nextCursor = employees.get(employees.size() - 1).getId();
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", nextCursor)
+                    .replaceQueryParam("limit", pageSize)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        }
+
+        return response.body(employees);
+    }
+
+    // 全件ストリーミング
+    // DBカーソルから1行ずつJSON配列に書き出すので、件数が増えてもヒープ使用量は一定
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(){
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = streamingWriter.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                employeesService.streamAll(employee -> {
+                    try {
+                        streamingWriter.writeValue(generator, employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
 
     }
 
@@ -44,13 +207,144 @@ public class EmployeesController {
 
     }
 
+    // 全件エクスポート (format=csv|ndjson、gzip=true で圧縮)
+    // DBカーソルから読んだ行をそのままレスポンスに書き出すので、件数が増えてもヒープ使用量は一定
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip){
+
+        EmployeesExportService.Format exportFormat = EmployeesExportService.Format.of(format);
+        if (exportFormat == null) {
+            throw new BadRequestException("formatは csv または ndjson を指定してください。");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            if (exportFormat == EmployeesExportService.Format.CSV) {
+                employeesExportService.writeCsv(target);
+            } else {
+                employeesExportService.writeNdjson(target);
+            }
+            target.flush();
+            if (target instanceof GZIPOutputStream gzipOutputStream) {
+                gzipOutputStream.finish();
+            }
+        };
+
+        String filename = exportFormat == EmployeesExportService.Format.CSV ? "employees.csv" : "employees.ndjson";
+        MediaType contentType = exportFormat == EmployeesExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        if (gzip) {
+            filename += ".gz";
+            contentType = new MediaType("application", "gzip");
+        }
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+
+    }
+
+    // 一括追加 (JSON配列)
+    // 行ごとのエラーは結果にまとめて返し、正常な行はそのまま登録する
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResult> bulkSave(@RequestBody List<Employees> employees,
+                                                     @RequestParam(required = false) Integer chunkSize){
+
+        BulkImportResult result = bulkImportService.importEmployees(employees, chunkSize);
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // 一括追加 (CSVをそのままリクエストボディで送る場合)
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResult> bulkSaveCsv(InputStream csv,
+                                                        @RequestParam(required = false) Integer chunkSize){
+
+        BulkImportResult result = bulkImportService.importEmployeesCsv(csv, chunkSize);
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // 一括追加 (CSVファイルのアップロード)
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkImportResult> bulkSaveCsvFile(@RequestParam("file") MultipartFile file,
+                                                            @RequestParam(required = false) Integer chunkSize) throws IOException {
+
+        try (InputStream csv = file.getInputStream()) {
+            BulkImportResult result = bulkImportService.importEmployeesCsv(csv, chunkSize);
+
+            return ResponseEntity.ok(result);
+        }
+
+    }
+
+    // COPY による高速取り込み (CSVをそのままリクエストボディで送る場合)
+    // メールアドレスが一致する従業員は更新、それ以外は追加する
+    @PostMapping(value = "/bulk/copy", consumes = "text/csv")
+    public ResponseEntity<CopyImportResult> copyCsv(InputStream csv){
+
+        CopyImportResult result = bulkImportService.copyEmployeesCsv(csv);
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // COPY による高速取り込み (CSVファイルのアップロード)
+    @PostMapping(value = "/bulk/copy", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CopyImportResult> copyCsvFile(@RequestParam("file") MultipartFile file) throws IOException {
+
+        try (InputStream csv = file.getInputStream()) {
+            CopyImportResult result = bulkImportService.copyEmployeesCsv(csv);
+
+            return ResponseEntity.ok(result);
+        }
+
+    }
+
+    // 一括異動 (条件に合う従業員をまとめて別の部署へ)
+    @PostMapping("/bulk/move")
+    public ResponseEntity<BulkUpdateResult> bulkMove(@RequestBody BulkMoveRequest request){
+
+        BulkUpdateResult result = employeesService.move(request);
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // 役職の一括変更
+    @PostMapping("/bulk/position")
+    public ResponseEntity<BulkUpdateResult> bulkUpdatePosition(@RequestBody BulkPositionRequest request){
+
+        BulkUpdateResult result = employeesService.updatePositions(request.getIds(), request.getPosition());
+
+        return ResponseEntity.ok(result);
+
+    }
+
+    // 一括削除
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkUpdateResult> bulkDelete(@RequestBody BulkDeleteRequest request){
+
+        BulkUpdateResult result = employeesService.deleteAll(request.getIds());
+
+        return ResponseEntity.ok(result);
+
+    }
+
     // 単品表示
+    // ETag に version を返す。If-None-Match が一致すれば 304 になる
     @GetMapping("/{id}")
     public ResponseEntity<Employees> findById(@PathVariable long id){
 
         Employees employees = employeesService.findById(id);
 
-        return ResponseEntity.ok(employees);
+        return ResponseEntity.ok().eTag(VersionETags.of(employees.getVersion())).body(employees);
 
     }
 
@@ -65,14 +359,21 @@ public class EmployeesController {
     }
 
     // 更新
+    // If-Match (GET で受け取った ETag) を付けると、その版のままのときだけ更新する。版が古ければ 412
     //    @PutMapping("/{id}")
     @PutMapping("/{id}")
     public ResponseEntity<Employees> updateById(@PathVariable long id,
-                                                @RequestBody Employees employees){
+                                                @RequestBody Employees employees,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+
+        Long version = VersionETags.parseIfMatch(ifMatch);
+        if (version != null){
+            employees.setVersion(version);
+        }
 
         Employees updateEmployees = employeesService.update(id,employees);
 
-        return ResponseEntity.ok(updateEmployees);
+        return ResponseEntity.ok().eTag(VersionETags.of(updateEmployees.getVersion())).body(updateEmployees);
 
     }
 
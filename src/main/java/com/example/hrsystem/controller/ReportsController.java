@@ -0,0 +1,62 @@
+package com.example.hrsystem.controller;
+
+import com.example.hrsystem.dto.DepartmentHeadcount;
+import com.example.hrsystem.dto.HeadcountSnapshot;
+import com.example.hrsystem.dto.MonthlyHires;
+import com.example.hrsystem.dto.OrganizationSummary;
+import com.example.hrsystem.dto.PositionHeadcount;
+import com.example.hrsystem.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+import java.util.List;
+
+// 集計 API (ダッシュボード・レポート用)
+// 集計はすべて DB 側で行うので、従業員数が増えてもレスポンスの大きさは変わらない
+@RestController
+@RequestMapping("/api/reports")
+public class ReportsController {
+
+    private final ReportService reportService;
+
+    public ReportsController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    // 全体の人数と平均勤続年数
+    @GetMapping("/summary")
+    public ResponseEntity<OrganizationSummary> summary(){
+        return ResponseEntity.ok(reportService.summary());
+    }
+
+    // 部署ごと・役職ごとの人数 (メモリ上のカウンターから返すので、数秒おきのポーリング向け)
+    @GetMapping("/headcount")
+    public ResponseEntity<HeadcountSnapshot> headcount(){
+        return ResponseEntity.ok(reportService.headcount());
+    }
+
+    // 部署ごとの人数と平均勤続年数
+    @GetMapping("/headcount/departments")
+    public ResponseEntity<List<DepartmentHeadcount>> headcountByDepartment(){
+        return ResponseEntity.ok(reportService.headcountByDepartment());
+    }
+
+    // 役職ごとの人数
+    @GetMapping("/headcount/positions")
+    public ResponseEntity<List<PositionHeadcount>> headcountByPosition(){
+        return ResponseEntity.ok(reportService.headcountByPosition());
+    }
+
+    // 月ごとの入社人数 (from / to は yyyy-MM、両端を含む)
+    @GetMapping("/hires")
+    public ResponseEntity<List<MonthlyHires>> hiresPerMonth(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to){
+        return ResponseEntity.ok(reportService.hiresPerMonth(from, to));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.hrsystem.controller;
+
+import com.example.hrsystem.exception.BadRequestException;
+
+// version 列と ETag / If-Match ヘッダーの変換用
+// ETag は強い ETag ("3" のような形) で返す
+final class VersionETags {
+
+    private VersionETags() {
+    }
+
+    // version から ETag を作る
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    // If-Match ヘッダーから version を取り出す
+    // ヘッダーなし・"*" の場合は版を問わないので null を返す。弱い ETag (W/"3") も受け付ける
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.strip();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match の形式が正しくありません: " + ifMatch);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.hrsystem.controller;
 
 import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.EmployeeListPage;
 import com.example.hrsystem.dto.Employees;
 import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.exception.ConflictException;
+import com.example.hrsystem.exception.PreconditionFailedException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
 import com.example.hrsystem.service.DepartmentService; // ◀︎ Serviceをインポート
 import com.example.hrsystem.service.EmployeesService;
@@ -12,10 +15,7 @@ import org.springframework.ui.Model; // ◀︎ Modelをインポート
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Controller
 @RequestMapping({"/web","/"})
@@ -141,6 +141,9 @@ public class WebController {
 
             // 削除成功後、一覧画面にリダイレクト
             return "redirect:/web/departments";
+        } catch (ConflictException e) {
+            // 所属する従業員がいる部署は削除しない (409)
+            return "redirect:/web/departments?delete_conflict";
         } catch (ResourceNotFoundException | BadRequestException e) {
             // 404/400エラーの場合、エラーメッセージと共に一覧に戻る
             return "redirect:/web/departments?delete_error";
@@ -150,48 +153,20 @@ public class WebController {
 //    *********** employees **************    //
 
     // 従業員一覧表示
+    // 部署名は SQL の JOIN で取得済みなので、ここでは詰め替えずにそのまま渡す
     @GetMapping("/employees")
-    public String listEmployees(Model model) {
+    public String listEmployees(@RequestParam(defaultValue = "1") int page,
+                                @RequestParam(defaultValue = "" + EmployeesService.DEFAULT_LIST_PAGE_SIZE) int size,
+                                @RequestParam(defaultValue = "id") String sort,
+                                @RequestParam(defaultValue = "asc") String dir,
+                                Model model) {
 
-        // 1. 従業員リストを取得
-        List<Employees> employees = employeesService.findAll();
+        // 1. 部署名付きの従業員リストを1ページ分だけ取得
+        EmployeeListPage employeePage = employeesService.findListPage(page, size, sort, dir);
 
-        // 2. 部署リストを取得 (ID検索を効率化するためMapに変換)
-        List<Departments> departments = departmentService.findAll();
-        Map<Long, String> departmentMap = new HashMap<>();
-        for (Departments dept : departments) {
-            departmentMap.put(dept.getId(), dept.getName());
-        }
-
-        // 3. 従業員データと部署名を結合した新しいリストを作成
-        // Thymeleafに渡すための新しいリスト
-        List<Map<String, Object>> employeeDisplayList = new ArrayList<>();
-
-        for (Employees emp : employees) {
-            Map<String, Object> displayItem = new HashMap<>();
-
-            // 従業員データをそのままコピー
-            displayItem.put("id", emp.getId());
-            displayItem.put("lastName", emp.getLastName());
-            displayItem.put("firstName", emp.getFirstName());
-            displayItem.put("email", emp.getEmail());
-            displayItem.put("position", emp.getPosition());
-            displayItem.put("hireDate", emp.getHireDate());
-            displayItem.put("departmentId", emp.getDepartmentId()); // IDも念のため残す
-
-            // 部署IDをキーに部署名を取得し、追加
-            if (emp.getDepartmentId() != null) {
-                String deptName = departmentMap.getOrDefault(emp.getDepartmentId(), "不明");
-                displayItem.put("departmentName", deptName); // ★部署名を追加★
-            } else {
-                displayItem.put("departmentName", "未所属");
-            }
-
-            employeeDisplayList.add(displayItem);
-        }
-
-        // Thymeleafに結合済みリストを渡す
-        model.addAttribute("employees", employeeDisplayList);
+        // 2. Thymeleafにそのまま渡す
+        model.addAttribute("employees", employeePage.items());
+        model.addAttribute("page", employeePage);
 
         return "employees/list";
     }
@@ -290,6 +265,9 @@ public class WebController {
             if (errorMessage != null && errorMessage.contains("employees_email_key")) {
                 // (A) 「メール重複」だと判明した場合
                 bindingResult.rejectValue("email", "duplicate.email", "このメールアドレスは既に使用されています。");
+            } else if (e instanceof PreconditionFailedException) {
+                // (C) 編集中に他の人が更新していた場合 (楽観ロック)
+                bindingResult.reject("global.error", e.getMessage());
             } else {
                 // (B) よく分からない、その他のエラーの場合
                 bindingResult.reject("global.error", "更新処理中に予期せぬエラーが発生しました。");
@@ -0,0 +1,8 @@
+package com.example.hrsystem.dto;
+
+// 「部署 x 役職」ごとの人数 (人数カウンターの突き合わせ用)
+public record AssignmentHeadcount(
+        Long departmentId,
+        String position,
+        long headcount) {
+}
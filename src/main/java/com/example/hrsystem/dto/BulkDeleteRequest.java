@@ -0,0 +1,12 @@
+package com.example.hrsystem.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// 一括削除 (POST /api/employees/bulk/delete)
+@Data
+public class BulkDeleteRequest {
+
+    private List<Long> ids;
+}
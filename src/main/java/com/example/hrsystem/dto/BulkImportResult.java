@@ -0,0 +1,16 @@
+package com.example.hrsystem.dto;
+
+import java.util.List;
+
+// 一括登録の結果
+// received: 受け取った行数 / inserted: 登録できた行数 / failed: エラーになった行数
+// errors: 行ごとのエラー (row は 1 始まりのデータ行番号。CSV のヘッダー行は数えない)
+public record BulkImportResult(
+        int received,
+        int inserted,
+        int failed,
+        List<RowError> errors) {
+
+    public record RowError(int row, String field, String message) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.hrsystem.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// 一括異動 (POST /api/employees/bulk/move)
+// 条件に合う従業員をまとめて toDepartmentId の部署へ移す。条件は指定したものだけを AND で絞り込む
+@Data
+public class BulkMoveRequest {
+
+    // 今の所属部署
+    private Long departmentId;
+    // 役職 (完全一致)
+    private String position;
+    // 入社日の範囲 (両端を含む)
+    private LocalDate hireDateFrom;
+    private LocalDate hireDateTo;
+    // 異動先の部署
+    private Long toDepartmentId;
+}
@@ -0,0 +1,13 @@
+package com.example.hrsystem.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// 役職の一括変更 (POST /api/employees/bulk/position)
+@Data
+public class BulkPositionRequest {
+
+    private List<Long> ids;
+    private String position;
+}
@@ -0,0 +1,11 @@
+package com.example.hrsystem.dto;
+
+import java.util.List;
+
+// 一括更新・一括削除の結果
+// affected: 更新・削除した行数
+// notFound: 指定された id のうち存在しなかったもの (条件で絞り込む一括異動では常に空)
+public record BulkUpdateResult(
+        long affected,
+        List<Long> notFound) {
+}
@@ -0,0 +1,31 @@
+package com.example.hrsystem.dto;
+
+import java.time.OffsetDateTime;
+
+// 変更履歴の1件 (GET /api/changes, /api/changes/stream)
+// seq はコミット順の通し番号。続きを取るときは最後に受け取った seq を since に渡す
+public record ChangeEvent(
+        long seq,
+        EntityType entityType,
+        long entityId,
+        Operation operation,
+        OffsetDateTime changedAt) {
+
+    public enum EntityType {
+        EMPLOYEE,
+        DEPARTMENT
+    }
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    // コミット前にためておく変更 (seq と日時はコミット時に決まる)
+    public record Entry(
+            EntityType entityType,
+            long entityId,
+            Operation operation) {
+    }
+}
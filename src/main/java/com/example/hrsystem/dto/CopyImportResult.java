@@ -0,0 +1,11 @@
+package com.example.hrsystem.dto;
+
+// COPY による高速取り込みの結果
+// staged: ステージングテーブルに読み込んだ行数
+// merged: 本テーブルに追加・更新された行数 (内容が変わらない行は数えない)
+// rejected: 参照先 (所属部署) が存在しないため取り込まなかった行数
+public record CopyImportResult(
+        long staged,
+        long merged,
+        long rejected) {
+}
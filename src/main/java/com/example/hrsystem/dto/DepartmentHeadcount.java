@@ -0,0 +1,10 @@
+package com.example.hrsystem.dto;
+
+// 部署ごとの人数と平均勤続年数 (GET /api/reports/headcount/departments)
+// 従業員のいない部署は headcount = 0、averageTenureYears = null。未所属の従業員は departmentId = null の行にまとめる
+public record DepartmentHeadcount(
+        Long departmentId,
+        String departmentName,
+        long headcount,
+        Double averageTenureYears) {
+}
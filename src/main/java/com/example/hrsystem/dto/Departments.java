@@ -18,7 +18,21 @@ public class Departments {
     @NotBlank(message = "所在地は必須項目です")
     @Size(max = 10,message = "所在地は10文字以内で入力してください")
     private String location;
+    // 版番号 (更新のたびに1つ進む。楽観ロックと ETag に使う)
+    private Long version;
     // 追加推奨
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
+
+    // 複製 (同時に来た同じ読み込みで結果を分け合うときに、それぞれに別のインスタンスを渡す)
+    public Departments copy() {
+        Departments copy = new Departments();
+        copy.setId(id);
+        copy.setName(name);
+        copy.setLocation(location);
+        copy.setVersion(version);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.hrsystem.dto;
+
+// 従業員の所属部署と役職 (人数カウンターの増減に使う)
+// departmentId が null なら未所属
+public record EmployeeAssignment(
+        Long departmentId,
+        String position) {
+}
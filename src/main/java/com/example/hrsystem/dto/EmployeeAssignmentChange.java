@@ -0,0 +1,21 @@
+package com.example.hrsystem.dto;
+
+// 一括更新・一括削除で変わった従業員の所属部署と役職 (人数カウンターの付け替えに使う)
+// 削除した行は departmentId / position が null
+public record EmployeeAssignmentChange(
+        long id,
+        Long previousDepartmentId,
+        String previousPosition,
+        Long departmentId,
+        String position) {
+
+    // 変更前
+    public EmployeeAssignment before() {
+        return new EmployeeAssignment(previousDepartmentId, previousPosition);
+    }
+
+    // 変更後 (削除した行は null)
+    public EmployeeAssignment after() {
+        return position != null ? new EmployeeAssignment(departmentId, position) : null;
+    }
+}
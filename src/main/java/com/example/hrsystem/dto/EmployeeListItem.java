@@ -0,0 +1,17 @@
+package com.example.hrsystem.dto;
+
+import java.time.LocalDate;
+
+// 従業員一覧画面用の行データ
+// employees と departments を SQL で JOIN した結果をそのまま受け取る (読み取り専用)
+public record EmployeeListItem(
+        Long id,
+        String lastName,
+        String firstName,
+        String email,
+        Long departmentId,
+        // 部署名 (未所属・部署が見つからない場合は SQL 側でラベルに置き換え済み)
+        String departmentName,
+        String position,
+        LocalDate hireDate) {
+}
@@ -0,0 +1,18 @@
+package com.example.hrsystem.dto;
+
+import java.util.List;
+
+// 従業員一覧画面の1ページ分
+// page は 1 始まり。hasNext は次のページが存在するかどうか
+public record EmployeeListPage(
+        List<EmployeeListItem> items,
+        int page,
+        int size,
+        String sort,
+        String dir,
+        boolean hasNext) {
+
+    public boolean hasPrevious() {
+        return page > 1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.hrsystem.dto;
+
+import java.util.List;
+
+// id を指定した複数件取得の結果
+// employees: 見つかった従業員 (指定された id の順。重複した id は1件にまとめる)
+// notFound: 見つからなかった id (指定された順)
+public record EmployeeLookupResult(
+        List<Employees> employees,
+        List<Long> notFound) {
+}
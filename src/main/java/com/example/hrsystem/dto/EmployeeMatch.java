@@ -0,0 +1,12 @@
+package com.example.hrsystem.dto;
+
+// 従業員名のあいまい検索 (typeahead) の候補
+// score は「姓 名」と入力文字列のトライグラム類似度 (0〜1、大きいほど近い)
+public record EmployeeMatch(
+        Long id,
+        String lastName,
+        String firstName,
+        Long departmentId,
+        String position,
+        Double score) {
+}
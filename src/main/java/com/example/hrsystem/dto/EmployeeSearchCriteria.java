@@ -0,0 +1,26 @@
+package com.example.hrsystem.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// 従業員検索の条件 (GET /api/employees/search のクエリパラメータ)
+// 指定された条件だけを AND で絞り込む。何も指定しなければ全件を id 順にページングする
+@Data
+public class EmployeeSearchCriteria {
+
+    private Long departmentId;
+    // 役職 (完全一致)
+    private String position;
+    // 入社日の範囲 (両端を含む)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hireDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hireDateTo;
+    // 姓または名の前方一致
+    private String name;
+    // キーセットページング (この id より後ろを limit 件)
+    private Long after;
+    private Integer limit;
+}
@@ -43,8 +43,25 @@ public class Employees {
     // ★ おまけ: 未来の日付での入社は禁止する（「今日」または「過去」のみ許可）
     @PastOrPresent(message = "入社日は、本日または過去の日付である必要があります")
     private LocalDate hireDate;
+    // 版番号 (更新のたびに1つ進む。楽観ロックと ETag に使う)
+    private Long version;
     private OffsetDateTime createdAt;
     // 更新日時 (レスポンスとして追加推奨)
     private OffsetDateTime updatedAt;
 
+    // 複製 (同時に来た同じ読み込みで結果を分け合うときに、それぞれに別のインスタンスを渡す)
+    public Employees copy() {
+        Employees copy = new Employees();
+        copy.setId(id);
+        copy.setLastName(lastName);
+        copy.setFirstName(firstName);
+        copy.setEmail(email);
+        copy.setDepartmentId(departmentId);
+        copy.setPosition(position);
+        copy.setHireDate(hireDate);
+        copy.setVersion(version);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
 }
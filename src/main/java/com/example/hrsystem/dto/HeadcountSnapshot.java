@@ -0,0 +1,15 @@
+package com.example.hrsystem.dto;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+// メモリ上の人数カウンターの値 (GET /api/reports/headcount)
+// departments は部署ID → 人数 (未所属は unassigned)、positions は役職 → 人数。0人の部署・役職は含まない
+// reconciledAt は最後に DB と突き合わせた日時 (起動直後でまだ一度も突き合わせていなければ null)
+public record HeadcountSnapshot(
+        long totalHeadcount,
+        long unassigned,
+        Map<Long, Long> departments,
+        Map<String, Long> positions,
+        OffsetDateTime reconciledAt) {
+}
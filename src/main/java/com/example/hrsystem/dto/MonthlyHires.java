@@ -0,0 +1,10 @@
+package com.example.hrsystem.dto;
+
+import java.time.LocalDate;
+
+// 月ごとの入社人数 (GET /api/reports/hires)
+// month はその月の1日。入社のない月も hires = 0 で返す
+public record MonthlyHires(
+        LocalDate month,
+        long hires) {
+}
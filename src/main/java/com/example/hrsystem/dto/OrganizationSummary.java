@@ -0,0 +1,8 @@
+package com.example.hrsystem.dto;
+
+// 組織全体の人数と平均勤続年数 (GET /api/reports/summary)
+// 従業員が1人もいない場合、averageTenureYears は null
+public record OrganizationSummary(
+        long totalHeadcount,
+        Double averageTenureYears) {
+}
@@ -0,0 +1,7 @@
+package com.example.hrsystem.dto;
+
+// 役職ごとの人数 (GET /api/reports/headcount/positions)
+public record PositionHeadcount(
+        String position,
+        long headcount) {
+}
@@ -0,0 +1,11 @@
+package com.example.hrsystem.dto;
+
+import java.time.OffsetDateTime;
+
+// 削除の記録 (GET /api/employees/deleted, /api/departments/deleted)
+// 差分同期で受け取った側が、こちらで消えた行を消せるようにする。seq は次ページのカーソル
+public record Tombstone(
+        long seq,
+        long id,
+        OffsetDateTime deletedAt) {
+}
@@ -0,0 +1,23 @@
+package com.example.hrsystem.dto;
+
+import lombok.Data;
+
+// 1件更新の結果 (更新後の行と、更新前の所属部署・役職)
+// 人数カウンターの付け替えに更新前の値が要るので、UPDATE ... RETURNING で更新後の行と一緒に受け取る
+@Data
+public class UpdatedEmployee {
+
+    private Employees employee;
+    private Long previousDepartmentId;
+    private String previousPosition;
+
+    // 更新前
+    public EmployeeAssignment before() {
+        return new EmployeeAssignment(previousDepartmentId, previousPosition);
+    }
+
+    // 更新後
+    public EmployeeAssignment after() {
+        return new EmployeeAssignment(employee.getDepartmentId(), employee.getPosition());
+    }
+}
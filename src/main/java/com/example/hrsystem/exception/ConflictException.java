@@ -0,0 +1,10 @@
+package com.example.hrsystem.exception;
+
+public class ConflictException extends RuntimeException {
+
+    // 今の状態では実行できない操作 (所属する従業員がいる部署の削除など) の例外処理
+    public ConflictException(String message){
+        super(message);
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.example.hrsystem.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    // 楽観ロック: 指定された版 (If-Match / version) が最新ではないときの例外処理
+    public PreconditionFailedException(long id){
+        super("指定された" + id + "というidのデータは、他の更新によって変更されています。最新の内容を取得し直してください。");
+    }
+
+}
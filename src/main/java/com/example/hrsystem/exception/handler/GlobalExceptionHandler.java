@@ -1,11 +1,19 @@
 package com.example.hrsystem.exception.handler;
 
 import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.exception.ConflictException;
+import com.example.hrsystem.exception.PreconditionFailedException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -20,6 +28,48 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(e.getMessage(),HttpStatus.BAD_REQUEST);
     }
 
+    // クエリパラメータを検索条件などのオブジェクトに変換できなかった場合 (日付の形式違いなど) は 400 を返す
+    @ExceptionHandler(BindException.class)
+    public ResponseEntity<String> handleBindException(BindException e){
+        FieldError fieldError = e.getFieldError();
+        String message = fieldError != null
+                ? fieldError.getField() + "の値が正しくありません: " + fieldError.getRejectedValue()
+                : "リクエストの値が正しくありません。";
+        return new ResponseEntity<>(message,HttpStatus.BAD_REQUEST);
+    }
+
+    // クエリパラメータ・パスの値が型に合わない場合 (月の形式違いなど) も 400 を返す
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<String> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e){
+        return new ResponseEntity<>(e.getName() + "の値が正しくありません: " + e.getValue(),HttpStatus.BAD_REQUEST);
+    }
+
+    // 必須のクエリパラメータが無い場合も 400 を返す
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<String> handleMissingServletRequestParameterException(MissingServletRequestParameterException e){
+        return new ResponseEntity<>(e.getParameterName() + "を指定してください。",HttpStatus.BAD_REQUEST);
+    }
+
+    // 楽観ロックの版違いは 412 を返す
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException e){
+        return new ResponseEntity<>(e.getMessage(),HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // 今の状態では実行できない操作 (従業員のいる部署の削除など) は 409 を返す
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<String> handleConflictException(ConflictException e){
+        return new ResponseEntity<>(e.getMessage(),HttpStatus.CONFLICT);
+    }
+
+    // 変更履歴の追記ロックを待ちきれなかった書き込み (ロールバック済み) は 503 を返す。少し待てばやり直せる
+    @ExceptionHandler(CannotAcquireLockException.class)
+    public ResponseEntity<String> handleCannotAcquireLockException(CannotAcquireLockException e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("他の更新が混み合っています。しばらくしてから再度お試しください。");
+    }
+
     // 500の例外処理を追加
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleAllExceptions(Exception e) {
@@ -0,0 +1,57 @@
+package com.example.hrsystem.mapper;
+
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.dto.Tombstone;
+import org.apache.ibatis.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+// 変更履歴の読み取り (書き込みは ChangeLogRepository が JDBC で行う)
+@Mapper
+public interface ChangeLogMapper {
+
+    // since より後の変更を seq 順に limit 件
+    @Select("""
+            SELECT seq, entity_type, entity_id, operation, changed_at
+             FROM change_log
+             WHERE seq > #{since}
+             ORDER BY seq
+             LIMIT #{limit}
+            """)
+    @ConstructorArgs({
+            @Arg(column = "seq", javaType = long.class),
+            @Arg(column = "entity_type", javaType = ChangeEvent.EntityType.class),
+            @Arg(column = "entity_id", javaType = long.class),
+            @Arg(column = "operation", javaType = ChangeEvent.Operation.class),
+            @Arg(column = "changed_at", javaType = OffsetDateTime.class)
+    })
+    List<ChangeEvent> findChangesSince(@Param("since") long since, @Param("limit") int limit);
+
+    // since 以降に削除された行 (seq のキーセット)
+    @Select("""
+            <script>
+            SELECT seq, entity_id, changed_at
+             FROM change_log
+             WHERE entity_type = #{entityType}
+              AND operation = 'DELETE'
+              AND changed_at &gt;= #{since}
+              <if test="after != null">AND seq &gt; #{after}</if>
+             ORDER BY seq
+             LIMIT #{limit}
+            </script>
+            """)
+    @ConstructorArgs({
+            @Arg(column = "seq", javaType = long.class),
+            @Arg(column = "entity_id", javaType = long.class),
+            @Arg(column = "changed_at", javaType = OffsetDateTime.class)
+    })
+    List<Tombstone> findDeletions(@Param("entityType") ChangeEvent.EntityType entityType,
+                                  @Param("since") OffsetDateTime since,
+                                  @Param("after") Long after,
+                                  @Param("limit") int limit);
+
+    // 最新の seq (履歴が空なら 0)
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM change_log")
+    long latestSeq();
+}
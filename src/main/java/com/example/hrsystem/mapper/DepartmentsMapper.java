@@ -3,30 +3,119 @@ package com.example.hrsystem.mapper;
 import com.example.hrsystem.dto.Departments;
 import org.apache.ibatis.annotations.*;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Mapper
 public interface DepartmentsMapper {
 
     // 部署一覧
-    @Select("SELECT id, name, location, created_at, updated_at FROM departments")
+    @Select("SELECT id, name, location, version, created_at, updated_at FROM departments")
     List<Departments> findAllDepartments();
 
+    // 差分同期 ((updated_at, id) のキーセット。条件は EmployeesMapper.findEmployeesUpdatedSince と同じ)
+    @Select("""
+            <script>
+            SELECT id, name, location, version, created_at, updated_at
+             FROM departments
+             WHERE
+             <choose>
+              <when test="after != null">(updated_at, id) &gt; (#{since}, #{after})</when>
+              <otherwise>updated_at &gt;= #{since}</otherwise>
+             </choose>
+             ORDER BY updated_at, id
+             LIMIT #{limit}
+            </script>
+            """)
+    List<Departments> findDepartmentsUpdatedSince(@Param("since") OffsetDateTime since,
+                                                  @Param("after") Long after,
+                                                  @Param("limit") int limit);
+
     // 部署1つだけ表示
-    @Select("SELECT id, name, location, created_at, updated_at FROM departments WHERE id = #{id}")
+    @Select("SELECT id, name, location, version, created_at, updated_at FROM departments WHERE id = #{id}")
     Departments findByDepartmentsId(long id);
 
+    // 存在チェック (楽観ロックで更新できなかった理由が「ない」のか「版が違う」のかの判定用)
+    @Select("SELECT EXISTS (SELECT 1 FROM departments WHERE id = #{id})")
+    boolean existsDepartment(long id);
+
+    // 削除の前に部署の行をロックする (対象がなければ null)
+    // 削除が終わるまで、この部署への従業員の追加・異動 (外部キーの確認) を待たせる
+    @Select("SELECT id FROM departments WHERE id = #{id} FOR UPDATE")
+    Long lockDepartment(long id);
+
     // 追加
     @Insert("INSERT INTO departments (name,location) VALUES (#{name},#{location})")
-    @Options(useGeneratedKeys = true,keyProperty = "id",keyColumn = "id")
+    @Options(useGeneratedKeys = true,keyProperty = "id,version",keyColumn = "id,version")
     int insertDepartments(Departments departments);
 
+    // COPY 取り込み用のステージングテーブル (トランザクション終了時に自動で消える)
+    @Update("""
+            CREATE TEMP TABLE departments_staging (
+             seq BIGINT GENERATED ALWAYS AS IDENTITY,
+             name TEXT NOT NULL,
+             location TEXT NOT NULL
+            ) ON COMMIT DROP
+            """)
+    void createDepartmentsStaging();
+
+    // ステージングから既存部署 (部署名が一致) の所在地を更新
+    // departments.name には一意制約がないため、ON CONFLICT ではなく UPDATE と INSERT の2文でマージする
+    // どちらも変更した行を同じ文で変更履歴のステージング (change_log_staging) に書き、件数だけを返す
+    @Select("""
+            WITH updated AS (
+            UPDATE departments d SET
+             location = s.location,
+             version = d.version + 1,
+             updated_at = CURRENT_TIMESTAMP
+             FROM (SELECT DISTINCT ON (name) name, location FROM departments_staging ORDER BY name, seq DESC) s
+             WHERE d.name = s.name AND d.location IS DISTINCT FROM s.location
+             RETURNING d.id
+            ), logged AS (
+            INSERT INTO change_log_staging (entity_type, entity_id, operation)
+            SELECT 'DEPARTMENT', id, 'UPDATE' FROM updated ORDER BY id
+             RETURNING 1
+            )
+            SELECT COUNT(*) FROM logged
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    long updateDepartmentsFromStaging();
+
+    // ステージングのうち、まだ存在しない部署を追加
+    @Select("""
+            WITH inserted AS (
+            INSERT INTO departments (name,location)
+            SELECT DISTINCT ON (s.name) s.name, s.location
+             FROM departments_staging s
+             WHERE NOT EXISTS (SELECT 1 FROM departments d WHERE d.name = s.name)
+             ORDER BY s.name, s.seq DESC
+             RETURNING id
+            ), logged AS (
+            INSERT INTO change_log_staging (entity_type, entity_id, operation)
+            SELECT 'DEPARTMENT', id, 'INSERT' FROM inserted ORDER BY id
+             RETURNING 1
+            )
+            SELECT COUNT(*) FROM logged
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    long insertDepartmentsFromStaging();
+
     // 削除
     @Delete("DELETE FROM departments WHERE id = #{id}")
     int deleteDepartments(long id);
 
     // 更新(部署名とか)
-    @Update("UPDATE departments SET name = #{name},location = #{location},updated_at = CURRENT_TIMESTAMP WHERE id = #{id}")
-    int updateDepartments(Departments departments);
+    // RETURNING で更新後の行をそのまま返す。対象がなければ null
+    // version を指定した場合は、その版のままのときだけ更新する (楽観ロック)
+    @Select("""
+            <script>
+            UPDATE departments SET name = #{name},location = #{location},version = version + 1,updated_at = CURRENT_TIMESTAMP
+             WHERE id = #{id}
+             <if test="version != null">AND version = #{version}</if>
+             RETURNING id, name, location, version, created_at, updated_at
+            </script>
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    Departments updateDepartments(Departments departments);
 
 }
@@ -1,48 +1,393 @@
 package com.example.hrsystem.mapper;
 
+import com.example.hrsystem.dto.BulkMoveRequest;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.EmployeeAssignmentChange;
+import com.example.hrsystem.dto.EmployeeListItem;
+import com.example.hrsystem.dto.EmployeeMatch;
+import com.example.hrsystem.dto.EmployeeSearchCriteria;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.dto.UpdatedEmployee;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Mapper
 public interface EmployeesMapper {
 
     // 従業員一覧表示
-    @Select("SELECT id,last_name,first_name,email,department_id,position,hire_date,created_at,updated_at FROM employees ")
+    @Select("SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at FROM employees ")
     List<Employees> findAllEmployees();
 
+    // 一覧のページ取得 (id をキーにしたキーセットページング)
+    // after より大きい id を昇順に limit 件だけ返す。after が null なら先頭から
+    @Select("""
+            <script>
+            SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at
+             FROM employees
+             <where>
+              <if test="after != null">id &gt; #{after}</if>
+             </where>
+             ORDER BY id
+             LIMIT #{limit}
+            </script>
+            """)
+    List<Employees> findEmployeesPage(@Param("after") Long after, @Param("limit") int limit);
+
+    // 差分同期 ((updated_at, id) をキーにしたキーセットページング)
+    // after を指定した場合は (since, after) より後、なければ since 以降 (境界と同時刻の行も取りこぼさないよう含める)
+    @Select("""
+            <script>
+            SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at
+             FROM employees
+             WHERE
+             <choose>
+              <when test="after != null">(updated_at, id) &gt; (#{since}, #{after})</when>
+              <otherwise>updated_at &gt;= #{since}</otherwise>
+             </choose>
+             ORDER BY updated_at, id
+             LIMIT #{limit}
+            </script>
+            """)
+    List<Employees> findEmployeesUpdatedSince(@Param("since") OffsetDateTime since,
+                                              @Param("after") Long after,
+                                              @Param("limit") int limit);
+
+    // 条件検索 (指定された条件だけを AND でつなぐ)
+    // id のキーセットでページングする。各条件は (条件列, id) の複合インデックスで引けるようにしてある
+    // namePattern は Service 側で LIKE の特殊文字をエスケープした前方一致パターン
+    @Select("""
+            <script>
+            SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at
+             FROM employees
+             <where>
+              <if test="criteria.departmentId != null">AND department_id = #{criteria.departmentId}</if>
+              <if test="criteria.position != null">AND position = #{criteria.position}</if>
+              <if test="criteria.hireDateFrom != null">AND hire_date &gt;= #{criteria.hireDateFrom}</if>
+              <if test="criteria.hireDateTo != null">AND hire_date &lt;= #{criteria.hireDateTo}</if>
+              <if test="namePattern != null">AND (last_name LIKE #{namePattern} OR first_name LIKE #{namePattern})</if>
+              <if test="criteria.after != null">AND id &gt; #{criteria.after}</if>
+             </where>
+             ORDER BY id
+             LIMIT #{limit}
+            </script>
+            """)
+    List<Employees> searchEmployees(@Param("criteria") EmployeeSearchCriteria criteria,
+                                    @Param("namePattern") String namePattern,
+                                    @Param("limit") int limit);
+
+    // 名前のあいまい検索 (typeahead)
+    // 「姓 名」の連結に対する pg_trgm の GIN インデックス (db/03_employee_name_trgm.sql) を使う
+    // 3文字以上は部分一致 (ILIKE)、それより短い入力はトライグラムが取れないので姓・名の前方一致で引く
+    // fuzzy = true のときは類似度 (%) で引く (打ち間違い用)。ありふれたトライグラムだと候補が増えて遅いので、
+    // 部分一致で1件も見つからなかったときだけ使う。どちらも類似度の高い順に limit 件
+    @Select("""
+            <script>
+            SELECT id,last_name,first_name,department_id,position,
+             similarity(last_name || ' ' || first_name, #{q}) AS score
+             FROM employees
+             WHERE
+             <choose>
+              <when test="fuzzy">(last_name || ' ' || first_name) % #{q}</when>
+              <when test="q.length() &gt;= 3">(last_name || ' ' || first_name) ILIKE #{containsPattern}</when>
+              <otherwise>(last_name LIKE #{prefixPattern} OR first_name LIKE #{prefixPattern})</otherwise>
+             </choose>
+             ORDER BY score DESC, id
+             LIMIT #{limit}
+            </script>
+            """)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Long.class),
+            @Arg(column = "last_name", javaType = String.class),
+            @Arg(column = "first_name", javaType = String.class),
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class),
+            @Arg(column = "score", javaType = Double.class)
+    })
+    List<EmployeeMatch> findNameMatches(@Param("q") String q,
+                                        @Param("containsPattern") String containsPattern,
+                                        @Param("prefixPattern") String prefixPattern,
+                                        @Param("fuzzy") boolean fuzzy,
+                                        @Param("limit") int limit);
+
+    // 全件を1行ずつ読み出す (ストリーミング用)
+    // fetchSize を指定してサーバー側カーソルで少しずつ取得する。トランザクション内で呼ぶこと
+    @Select("SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at FROM employees ORDER BY id")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<Employees> scanAllEmployees();
+
+    // 一覧画面用 (部署名を JOIN して1クエリで取得する)
+    // sort は Service 側でホワイトリスト済みの値だけが渡ってくる。未知の値は id 順
+    @Select("""
+            <script>
+            SELECT e.id,e.last_name,e.first_name,e.email,e.department_id,
+             CASE WHEN e.department_id IS NULL THEN '未所属' ELSE COALESCE(d.name, '不明') END AS department_name,
+             e.position,e.hire_date
+             FROM employees e
+             LEFT JOIN departments d ON d.id = e.department_id
+             ORDER BY
+             <choose>
+              <when test="sort == 'lastName'">e.last_name</when>
+              <when test="sort == 'email'">e.email</when>
+              <when test="sort == 'departmentName'">department_name</when>
+              <when test="sort == 'position'">e.position</when>
+              <when test="sort == 'hireDate'">e.hire_date</when>
+              <otherwise>e.id</otherwise>
+             </choose>
+             <if test="descending">DESC</if>, e.id
+             LIMIT #{limit} OFFSET #{offset}
+            </script>
+            """)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Long.class),
+            @Arg(column = "last_name", javaType = String.class),
+            @Arg(column = "first_name", javaType = String.class),
+            @Arg(column = "email", javaType = String.class),
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "department_name", javaType = String.class),
+            @Arg(column = "position", javaType = String.class),
+            @Arg(column = "hire_date", javaType = LocalDate.class)
+    })
+    List<EmployeeListItem> findEmployeeListItems(@Param("sort") String sort,
+                                                 @Param("descending") boolean descending,
+                                                 @Param("offset") int offset,
+                                                 @Param("limit") int limit);
+
     // 1人だけ表示
-    @Select("SELECT id,last_name,first_name,email,department_id,position,hire_date,created_at,updated_at FROM employees WHERE id = #{id}")
+    @Select("SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at FROM employees WHERE id = #{id}")
     Employees findByEmployeesId(long id);
 
+    // id を指定して複数件 (ids は配列のまま1つのパラメータで渡す。並び順は呼び出し側でそろえる)
+    @Select("""
+            SELECT id,last_name,first_name,email,department_id,position,hire_date,version,created_at,updated_at
+             FROM employees
+             WHERE id = ANY(#{ids,typeHandler=org.apache.ibatis.type.ArrayTypeHandler})
+            """)
+    List<Employees> findEmployeesByIds(@Param("ids") Long[] ids);
+
+    // 存在チェック (楽観ロックで更新できなかった理由が「ない」のか「版が違う」のかの判定用)
+    @Select("SELECT EXISTS (SELECT 1 FROM employees WHERE id = #{id})")
+    boolean existsEmployee(long id);
+
+    // 部署に所属する従業員がいるか (employees_department_id_id_idx の先頭1件だけを見る)
+    @Select("SELECT EXISTS (SELECT 1 FROM employees WHERE department_id = #{departmentId})")
+    boolean existsInDepartment(long departmentId);
+
     // 追加
     @Insert("""
             INSERT INTO employees
              (last_name,first_name,email,department_id,position,hire_date)
               VALUES (#{lastName},#{firstName},#{email},#{departmentId},#{position},#{hireDate})
             """)
-    @Options(useGeneratedKeys = true,keyProperty = "id")
+    @Options(useGeneratedKeys = true,keyProperty = "id,version",keyColumn = "id,version")
     int insertEmployee(Employees employee);
 
+    // 一括登録用の追加
+    // メール重複 (employees_email_key) は例外にせず 0 件として返すので、バッチ全体が止まらない
+    @Insert("""
+            INSERT INTO employees
+             (last_name,first_name,email,department_id,position,hire_date)
+              VALUES (#{lastName},#{firstName},#{email},#{departmentId},#{position},#{hireDate})
+              ON CONFLICT (email) DO NOTHING
+            """)
+    int insertEmployeeIgnoringDuplicateEmail(Employees employee);
+
+    // COPY 取り込み用のステージングテーブル (トランザクション終了時に自動で消える)
+    // seq はファイル内の行順。同じメールアドレスが複数行ある場合は後の行を採用する
+    @Update("""
+            CREATE TEMP TABLE employees_staging (
+             seq BIGINT GENERATED ALWAYS AS IDENTITY,
+             last_name TEXT NOT NULL,
+             first_name TEXT NOT NULL,
+             email TEXT NOT NULL,
+             department_id BIGINT NOT NULL,
+             position TEXT NOT NULL,
+             hire_date DATE NOT NULL
+            ) ON COMMIT DROP
+            """)
+    void createEmployeesStaging();
+
+    // ステージングのうち、所属部署が存在しない行数
+    @Select("""
+            SELECT COUNT(*) FROM employees_staging s
+             WHERE NOT EXISTS (SELECT 1 FROM departments d WHERE d.id = s.department_id)
+            """)
+    long countRejectedEmployeesStaging();
+
+    // ステージングから本テーブルへマージ (メールアドレスをキーに追加 or 更新)
+    // 内容が変わらない行は更新しない (updated_at を動かさない)
+    // 追加・更新した行は同じ文で変更履歴のステージング (change_log_staging) に書き、件数だけを返す (id は Java に戻さない)
+    // xmax が 0 の行は今回追加した行 (ON CONFLICT で更新した行は 0 以外になる)
+    @Select("""
+            WITH merged AS (
+            INSERT INTO employees
+             (last_name,first_name,email,department_id,position,hire_date)
+            SELECT DISTINCT ON (s.email) s.last_name,s.first_name,s.email,s.department_id,s.position,s.hire_date
+             FROM employees_staging s
+             WHERE EXISTS (SELECT 1 FROM departments d WHERE d.id = s.department_id)
+             ORDER BY s.email, s.seq DESC
+            ON CONFLICT (email) DO UPDATE SET
+             last_name = EXCLUDED.last_name,
+             first_name = EXCLUDED.first_name,
+             department_id = EXCLUDED.department_id,
+             position = EXCLUDED.position,
+             hire_date = EXCLUDED.hire_date,
+             version = employees.version + 1,
+             updated_at = CURRENT_TIMESTAMP
+             WHERE (employees.last_name, employees.first_name, employees.department_id, employees.position, employees.hire_date)
+              IS DISTINCT FROM (EXCLUDED.last_name, EXCLUDED.first_name, EXCLUDED.department_id, EXCLUDED.position, EXCLUDED.hire_date)
+            RETURNING id, (xmax = 0) AS inserted
+            ), logged AS (
+            INSERT INTO change_log_staging (entity_type, entity_id, operation)
+            SELECT 'EMPLOYEE', id, CASE WHEN inserted THEN 'INSERT' ELSE 'UPDATE' END
+             FROM merged
+             ORDER BY id
+             RETURNING 1
+            )
+            SELECT COUNT(*) FROM logged
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    long mergeEmployeesStaging();
+
     // 削除
-    @Delete("""
+    // RETURNING で削除した行の所属部署と役職を返す (人数カウンター用)。対象がなければ null
+    @Select("""
             DELETE FROM employees WHERE id = #{id}
+             RETURNING department_id, position
             """)
-    int deleteEmployee(long id);
+    @ConstructorArgs({
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class)
+    })
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    EmployeeAssignment deleteEmployee(long id);
+
+    // 一括異動 (条件に合う従業員の所属部署をまとめて変える)
+    // 対象行を id 順にロックしてから1文で更新する (同時に動く一括更新とデッドロックしないように順番をそろえる)
+    // すでに異動先にいる行は更新しない。変わった行の変更前後の部署・役職を返す
+    @Select("""
+            <script>
+            UPDATE employees e SET
+             department_id = #{request.toDepartmentId},
+             version = e.version + 1,
+             updated_at = CURRENT_TIMESTAMP
+             FROM (
+              SELECT id, department_id, position FROM employees
+               WHERE department_id IS DISTINCT FROM #{request.toDepartmentId}
+               <if test="request.departmentId != null">AND department_id = #{request.departmentId}</if>
+               <if test="request.position != null">AND position = #{request.position}</if>
+               <if test="request.hireDateFrom != null">AND hire_date &gt;= #{request.hireDateFrom}</if>
+               <if test="request.hireDateTo != null">AND hire_date &lt;= #{request.hireDateTo}</if>
+               ORDER BY id
+               FOR UPDATE
+             ) old
+             WHERE e.id = old.id
+             RETURNING e.id, old.department_id AS previous_department_id, old.position AS previous_position,
+              e.department_id, e.position
+            </script>
+            """)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = long.class),
+            @Arg(column = "previous_department_id", javaType = Long.class),
+            @Arg(column = "previous_position", javaType = String.class),
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class)
+    })
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<EmployeeAssignmentChange> moveEmployees(@Param("request") BulkMoveRequest request);
+
+    // 役職の一括変更 (ids は配列のまま1つのパラメータで渡す)
+    @Select("""
+            UPDATE employees e SET
+             position = #{position},
+             version = e.version + 1,
+             updated_at = CURRENT_TIMESTAMP
+             FROM (
+              SELECT id, department_id, position FROM employees
+               WHERE id = ANY(#{ids,typeHandler=org.apache.ibatis.type.ArrayTypeHandler})
+               ORDER BY id
+               FOR UPDATE
+             ) old
+             WHERE e.id = old.id
+             RETURNING e.id, old.department_id AS previous_department_id, old.position AS previous_position,
+              e.department_id, e.position
+            """)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = long.class),
+            @Arg(column = "previous_department_id", javaType = Long.class),
+            @Arg(column = "previous_position", javaType = String.class),
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class)
+    })
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<EmployeeAssignmentChange> updatePositions(@Param("ids") Long[] ids, @Param("position") String position);
+
+    // 一括削除 (ロックの順番は一括更新と同じく id 順)
+    // 削除した行の部署・役職を返す (変更後は null)
+    @Select("""
+            DELETE FROM employees e
+             USING (
+              SELECT id FROM employees
+               WHERE id = ANY(#{ids,typeHandler=org.apache.ibatis.type.ArrayTypeHandler})
+               ORDER BY id
+               FOR UPDATE
+             ) target
+             WHERE e.id = target.id
+             RETURNING e.id, e.department_id AS previous_department_id, e.position AS previous_position,
+              NULL::bigint AS department_id, NULL::text AS position
+            """)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = long.class),
+            @Arg(column = "previous_department_id", javaType = Long.class),
+            @Arg(column = "previous_position", javaType = String.class),
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class)
+    })
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<EmployeeAssignmentChange> deleteEmployees(@Param("ids") Long[] ids);
 
     // 更新(部署とか苗字とかメルアドとか)
-    @Update("""
-            UPDATE employees SET
+    // RETURNING で更新後の行と、更新前の所属部署・役職 (人数カウンター用) を1文で返す。対象がなければ null
+    // 更新前の値は行ロックを取って読む (moveEmployees と同じ。同時に更新されても、ロック後の最新の値になる)
+    // version を指定した場合は、その版のままのときだけ更新する (楽観ロック)。更新のたびに version を1つ進める
+    @Select("""
+            <script>
+            UPDATE employees e SET
              last_name = #{lastName},
              first_name = #{firstName},
              email = #{email},
              department_id = #{departmentId},
              position = #{position},
+             version = e.version + 1,
              updated_at = CURRENT_TIMESTAMP
-             WHERE id = #{id}
+             FROM (SELECT id, department_id, position FROM employees WHERE id = #{id} FOR UPDATE) old
+             WHERE e.id = old.id
+             <if test="version != null">AND e.version = #{version}</if>
+             RETURNING e.id, e.last_name, e.first_name, e.email, e.department_id, e.position, e.hire_date,
+              e.version, e.created_at, e.updated_at,
+              old.department_id AS previous_department_id, old.position AS previous_position
+            </script>
             """)
-    int updateEmployee(Employees employee);
+    @Results({
+            @Result(property = "employee.id", column = "id"),
+            @Result(property = "employee.lastName", column = "last_name"),
+            @Result(property = "employee.firstName", column = "first_name"),
+            @Result(property = "employee.email", column = "email"),
+            @Result(property = "employee.departmentId", column = "department_id"),
+            @Result(property = "employee.position", column = "position"),
+            @Result(property = "employee.hireDate", column = "hire_date"),
+            @Result(property = "employee.version", column = "version"),
+            @Result(property = "employee.createdAt", column = "created_at"),
+            @Result(property = "employee.updatedAt", column = "updated_at"),
+            @Result(property = "previousDepartmentId", column = "previous_department_id"),
+            @Result(property = "previousPosition", column = "previous_position")
+    })
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    UpdatedEmployee updateEmployee(Employees employee);
 
 //    private long id;
 //    private String firstName;
@@ -0,0 +1,124 @@
+package com.example.hrsystem.mapper;
+
+import com.example.hrsystem.dto.AssignmentHeadcount;
+import com.example.hrsystem.dto.DepartmentHeadcount;
+import com.example.hrsystem.dto.MonthlyHires;
+import com.example.hrsystem.dto.OrganizationSummary;
+import com.example.hrsystem.dto.PositionHeadcount;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// 集計用 (従業員の行は JVM に持ってこず、すべて SQL の GROUP BY で数える)
+@Mapper
+public interface ReportsMapper {
+
+    // 集計の元になる「部署 x 役職 x 入社月」ごとの人数
+    // summary = true なら集計済みビュー (db/04_employee_summary_mv.sql)、false なら employees をその場で集計する
+    String SOURCE = """
+            <choose>
+             <when test="summary">employee_summary_mv</when>
+             <otherwise>(SELECT department_id, position, date_trunc('month', hire_date)::date AS hire_month,
+               COUNT(*) AS headcount, SUM(hire_date - DATE '1970-01-01') AS hire_day_sum
+               FROM employees
+               GROUP BY department_id, position, date_trunc('month', hire_date)::date)</otherwise>
+            </choose>
+            """;
+
+    // 入社日の合計から平均勤続年数 (年、小数2桁) を計算する式
+    String AVERAGE_TENURE_YEARS = """
+            ROUND((((CURRENT_DATE - DATE '1970-01-01') - SUM(s.hire_day_sum)::numeric / NULLIF(SUM(s.headcount), 0)) / 365.25), 2)
+            """;
+
+    // 部署ごとの人数と平均勤続年数 (従業員のいない部署・未所属も含める)
+    @Select("<script>"
+            + """
+            SELECT COALESCE(d.id, g.department_id) AS department_id,
+             CASE WHEN d.id IS NOT NULL THEN d.name WHEN g.department_id IS NULL THEN '未所属' ELSE '不明' END AS department_name,
+             COALESCE(g.headcount, 0) AS headcount,
+             g.average_tenure_years
+             FROM departments d
+             FULL JOIN (
+              SELECT s.department_id, SUM(s.headcount) AS headcount,
+            """ + AVERAGE_TENURE_YEARS + """
+               AS average_tenure_years
+               FROM
+            """ + SOURCE + """
+               s
+               GROUP BY s.department_id
+             ) g ON g.department_id = d.id
+             ORDER BY department_id NULLS LAST
+            """ + "</script>")
+    @ConstructorArgs({
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "department_name", javaType = String.class),
+            @Arg(column = "headcount", javaType = long.class),
+            @Arg(column = "average_tenure_years", javaType = Double.class)
+    })
+    List<DepartmentHeadcount> headcountByDepartment(@Param("summary") boolean summary);
+
+    // 役職ごとの人数 (多い順)
+    @Select("<script>"
+            + """
+            SELECT s.position, SUM(s.headcount) AS headcount
+             FROM
+            """ + SOURCE + """
+             s
+             GROUP BY s.position
+             ORDER BY headcount DESC, s.position
+            """ + "</script>")
+    @ConstructorArgs({
+            @Arg(column = "position", javaType = String.class),
+            @Arg(column = "headcount", javaType = long.class)
+    })
+    List<PositionHeadcount> headcountByPosition(@Param("summary") boolean summary);
+
+    // 月ごとの入社人数 (from 〜 to の各月の1日、入社のない月は 0)
+    @Select("<script>"
+            + """
+            SELECT m.month::date AS month, COALESCE(SUM(s.headcount), 0) AS hires
+             FROM generate_series(#{from}::date, #{to}::date, INTERVAL '1 month') AS m(month)
+             LEFT JOIN
+            """ + SOURCE + """
+             s ON s.hire_month = m.month::date
+             GROUP BY m.month
+             ORDER BY m.month
+            """ + "</script>")
+    @ConstructorArgs({
+            @Arg(column = "month", javaType = LocalDate.class),
+            @Arg(column = "hires", javaType = long.class)
+    })
+    List<MonthlyHires> hiresPerMonth(@Param("summary") boolean summary,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+
+    // 全体の人数と平均勤続年数
+    @Select("<script>"
+            + """
+            SELECT COALESCE(SUM(s.headcount), 0) AS total_headcount,
+            """ + AVERAGE_TENURE_YEARS + """
+             AS average_tenure_years
+             FROM
+            """ + SOURCE + """
+             s
+            """ + "</script>")
+    @ConstructorArgs({
+            @Arg(column = "total_headcount", javaType = long.class),
+            @Arg(column = "average_tenure_years", javaType = Double.class)
+    })
+    OrganizationSummary summary(@Param("summary") boolean summary);
+
+    // 「部署 x 役職」ごとの人数 (メモリ上の人数カウンターとの突き合わせ用、いつも employees から数える)
+    @Select("SELECT department_id, position, COUNT(*) AS headcount FROM employees GROUP BY department_id, position")
+    @ConstructorArgs({
+            @Arg(column = "department_id", javaType = Long.class),
+            @Arg(column = "position", javaType = String.class),
+            @Arg(column = "headcount", javaType = long.class)
+    })
+    List<AssignmentHeadcount> headcountByAssignment();
+
+    // 集計済みビューを作り直す (読み取りは止めない)
+    @Update("REFRESH MATERIALIZED VIEW CONCURRENTLY employee_summary_mv")
+    void refreshSummary();
+}
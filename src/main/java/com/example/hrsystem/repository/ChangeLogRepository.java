@@ -0,0 +1,145 @@
+package com.example.hrsystem.repository;
+
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.dto.Tombstone;
+import com.example.hrsystem.mapper.ChangeLogMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// 変更履歴 (change_log) の読み書き
+// seq をコミット順の抜けのない通し番号にするため、追記はクラスタ全体で1本ずつ行う (LOCK_SQL)
+// ロックはコミットまで持つので、従業員・部署を書き換えるトランザクションは、すべてのサーバーを通してコミットが1本ずつになる
+// (1件の更新なら追記とコミットの数ミリ秒だけだが、COPY 取り込みのマージはステージングの全件を追記し終えるまで他の書き込みを待たせる)
+// 1つの遅いコミットで全員が止まり続けないように、ロックの待ち時間は hr.changes.lock-timeout で打ち切る (503 になる)
+@Repository
+public class ChangeLogRepository {
+
+    // 変更履歴の書き込みを1本ずつにするロック (トランザクション終了で自動的に外れる)
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('change_log'))";
+
+    // このトランザクションの中だけ、ロックの待ち時間に上限を付ける (ミリ秒)
+    private static final String LOCK_TIMEOUT_SQL = "SELECT set_config('lock_timeout', ?, true)";
+    // lock_timeout で打ち切られたときの SQLSTATE (lock_not_available)
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    // 配列で受け取った変更を、渡した順に seq を振って追記する
+    private static final String APPEND_SQL = """
+            INSERT INTO change_log (entity_type, entity_id, operation)
+            SELECT u.entity_type, u.entity_id, u.operation
+             FROM unnest(?::varchar[], ?::bigint[], ?::varchar[]) WITH ORDINALITY AS u(entity_type, entity_id, operation, n)
+             ORDER BY u.n
+            """;
+
+    // JDBC バッチで追加した従業員は id が返らないので、メールアドレスから引いて追記する
+    private static final String APPEND_INSERTED_EMPLOYEES_SQL = """
+            INSERT INTO change_log (entity_type, entity_id, operation)
+            SELECT 'EMPLOYEE', e.id, 'INSERT'
+             FROM employees e
+             WHERE e.email = ANY(?::varchar[])
+             ORDER BY e.id
+            """;
+
+    // COPY 取り込みのマージが SQL の中で変更を書くステージング (トランザクション終了時に自動で消える)
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMP TABLE change_log_staging (
+             n BIGINT GENERATED ALWAYS AS IDENTITY,
+             entity_type VARCHAR(20) NOT NULL,
+             entity_id BIGINT NOT NULL,
+             operation VARCHAR(10) NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    // ステージングの変更を、書かれた順に seq を振って追記する (DB の中だけで移すので件数が多くても Java には読み込まない)
+    private static final String APPEND_STAGING_SQL = """
+            INSERT INTO change_log (entity_type, entity_id, operation)
+            SELECT entity_type, entity_id, operation
+             FROM change_log_staging
+             ORDER BY n
+            """;
+
+    private final ChangeLogMapper changeLogMapper;
+    // 書き込みは MyBatis を通さない
+    // (一括登録のトランザクションは BATCH の SqlSession を持っていて、同じトランザクションで別の SqlSession を使えないため)
+    private final JdbcTemplate jdbcTemplate;
+    private final String lockTimeoutMillis;
+
+    public ChangeLogRepository(ChangeLogMapper changeLogMapper, JdbcTemplate jdbcTemplate,
+                               @Value("${hr.changes.lock-timeout:5s}") Duration lockTimeout) {
+        this.changeLogMapper = changeLogMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockTimeoutMillis = String.valueOf(lockTimeout.toMillis());
+    }
+
+    // since より後の変更
+    public List<ChangeEvent> findSince(long since, int limit){
+        return changeLogMapper.findChangesSince(since, limit);
+    }
+
+    // since 以降に削除された行
+    public List<Tombstone> findDeletions(ChangeEvent.EntityType entityType, OffsetDateTime since, Long after, int limit){
+        return changeLogMapper.findDeletions(entityType, since, after, limit);
+    }
+
+    // 最新の seq
+    public long latestSeq(){
+        return changeLogMapper.latestSeq();
+    }
+
+    // 変更履歴のステージングを作る
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createStaging(){
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+    }
+
+    // 変更を追記する (staging が true ならステージングに書かれた変更も)
+    // コミットの直前に呼ぶこと。ロックはコミットまで持ち続けるので、seq の順とコミットの順が一致する
+    // lock-timeout の間にロックを取れなければ CannotAcquireLockException (トランザクションはロールバックされる)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<ChangeEvent.Entry> entries, Collection<String> insertedEmployeeEmails, boolean staging){
+
+        jdbcTemplate.query(LOCK_TIMEOUT_SQL, resultSet -> {
+        }, lockTimeoutMillis);
+        try {
+            jdbcTemplate.query(LOCK_SQL, resultSet -> {
+            });
+        } catch (DataAccessException e) {
+            // JdbcTemplate の例外変換では分類されないことがあるので、SQLSTATE で判定する
+            if (e.getCause() instanceof SQLException sqlException && LOCK_NOT_AVAILABLE.equals(sqlException.getSQLState())) {
+                throw new CannotAcquireLockException("変更履歴のロックを " + lockTimeoutMillis + " ミリ秒以内に取れませんでした", e);
+            }
+            throw e;
+        }
+
+        if (!entries.isEmpty()) {
+            Object[] entityTypes = entries.stream().map(entry -> entry.entityType().name()).toArray();
+            Object[] entityIds = entries.stream().map(ChangeEvent.Entry::entityId).toArray();
+            Object[] operations = entries.stream().map(entry -> entry.operation().name()).toArray();
+            jdbcTemplate.update(APPEND_SQL, statement -> {
+                statement.setArray(1, statement.getConnection().createArrayOf("varchar", entityTypes));
+                statement.setArray(2, statement.getConnection().createArrayOf("bigint", entityIds));
+                statement.setArray(3, statement.getConnection().createArrayOf("varchar", operations));
+            });
+        }
+
+        if (staging) {
+            jdbcTemplate.update(APPEND_STAGING_SQL);
+        }
+
+        if (!insertedEmployeeEmails.isEmpty()) {
+            Object[] emails = insertedEmployeeEmails.toArray();
+            jdbcTemplate.update(APPEND_INSERTED_EMPLOYEES_SQL, statement ->
+                    statement.setArray(1, statement.getConnection().createArrayOf("varchar", emails)));
+        }
+    }
+}
@@ -1,43 +1,139 @@
 package com.example.hrsystem.repository;
 
+import com.example.hrsystem.config.PrimaryReads;
 import com.example.hrsystem.dto.Departments;
 import com.example.hrsystem.mapper.DepartmentsMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+// 部署はほとんど変わらないので読み込みはキャッシュする (設定は application.properties)
+// 書き込み時は影響するキャッシュだけを消す
+// キャッシュにない部署を同時に読みに来た場合は、SingleFlight で SQL を1回にまとめる
+// キャッシュに入れる行はプライマリから読む (遅れたレプリカの古い行を、書き込みで消した後のキャッシュに入れ直さないように)
 @Repository
 public class DepartmentsRepository {
 
+    public static final String LIST_CACHE = "departments";
+    public static final String ITEM_CACHE = "department";
+
     private final DepartmentsMapper departmentsMapper;
+    private final SingleFlight singleFlight;
+    // 部署データの版 (書き込みがコミットされるたびに1つ進む。画面のキャッシュのキーに使う)
+    private final AtomicLong dataVersion = new AtomicLong();
 
-    public DepartmentsRepository(DepartmentsMapper departmentsMapper) {
+    public DepartmentsRepository(DepartmentsMapper departmentsMapper, SingleFlight singleFlight) {
         this.departmentsMapper = departmentsMapper;
+        this.singleFlight = singleFlight;
     }
 
-    // 一覧
+    // 一覧 (キャッシュ上で書き換えられないように変更不可のリストで持つ)
+    @Cacheable(cacheNames = LIST_CACHE, key = "'all'")
     public List<Departments> findAll(){
-        return departmentsMapper.findAllDepartments();
+        return singleFlight.execute(LIST_CACHE, "all", () -> {
+            try (PrimaryReads.Pin pin = PrimaryReads.pin()) {
+                return List.copyOf(departmentsMapper.findAllDepartments());
+            }
+        }, departments -> departments.stream().map(Departments::copy).toList());
+    }
+
+    // 差分同期 ((updatedAt, id) のキーセット。変わった行だけを読むのでキャッシュしない)
+    public List<Departments> findUpdatedSince(OffsetDateTime since, Long after, int limit){
+        return departmentsMapper.findDepartmentsUpdatedSince(since, after, limit);
     }
 
-    // 単品表示
+    // 単品表示 (見つからなかった結果はキャッシュしない)
+    @Cacheable(cacheNames = ITEM_CACHE, key = "#id", unless = "#result == null")
     public Departments findById(long id){
-        return departmentsMapper.findByDepartmentsId(id);
+        return singleFlight.execute(ITEM_CACHE, id, () -> {
+            try (PrimaryReads.Pin pin = PrimaryReads.pin()) {
+                return departmentsMapper.findByDepartmentsId(id);
+            }
+        }, Departments::copy);
     }
 
     // 追加
+    @CacheEvict(cacheNames = LIST_CACHE, allEntries = true)
     public int insert(Departments department){
+        forgetInFlight();
         return departmentsMapper.insertDepartments(department);
     }
 
+    // COPY 取り込み用のステージングテーブルを作る
+    public void createStaging(){
+        departmentsMapper.createDepartmentsStaging();
+    }
+
+    // ステージングから本テーブルへマージ (既存は所在地を更新、なければ追加)
+    // 戻り値は追加・更新した行数の合計 (変更履歴は ChangeLog.openStaging() で用意したステージングに SQL の中で書く)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = LIST_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = ITEM_CACHE, allEntries = true)
+    })
+    public long mergeStaging(){
+        forgetInFlight();
+        return departmentsMapper.updateDepartmentsFromStaging() + departmentsMapper.insertDepartmentsFromStaging();
+    }
+
     // 削除
+    @Caching(evict = {
+            @CacheEvict(cacheNames = LIST_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = ITEM_CACHE, key = "#id")
+    })
     public int deleteById(long id){
         // 戻り値より大きいならば削除成功 idが0より大きければ成功となる
+        forgetInFlight();
         return departmentsMapper.deleteDepartments(id);
     }
 
-    // 更新
-    public int update(Departments department){
+    // 削除の前に行ロックを取る (対象がなければ false)
+    public boolean lock(long id){
+        return departmentsMapper.lockDepartment(id) != null;
+    }
+
+    // 存在チェック
+    public boolean existsById(long id){
+        return departmentsMapper.existsDepartment(id);
+    }
+
+    // 更新 (更新後の行を返す。対象がなければ null)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = LIST_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = ITEM_CACHE, key = "#department.id")
+    })
+    public Departments update(Departments department){
+        forgetInFlight();
         return departmentsMapper.updateDepartments(department);
     }
+
+    // 部署データの版 (このサーバーが起動してから、部署の書き込みがコミットされた回数)
+    public long dataVersion(){
+        return dataVersion.get();
+    }
+
+    // 書き込みのコミット後は、コミット前に始まった読み込みの結果を使わせない
+    // 版はキャッシュが消えた後 (トランザクションの完了時) に進める。先に進めると、消える前の古い一覧で画面を作り直してしまう
+    private void forgetInFlight(){
+        singleFlight.forgetAfterCommit(LIST_CACHE);
+        singleFlight.forgetAfterCommit(ITEM_CACHE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        dataVersion.incrementAndGet();
+                    }
+                }
+            });
+        } else {
+            dataVersion.incrementAndGet();
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.hrsystem.repository;
+
+import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.mapper.EmployeesMapper;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public class EmployeesBatchRepository {
+
+    // JDBC バッチで実行する専用のテンプレート
+    // 通常のマッパーとは別 Bean にせず、ここで閉じて持つ (既定の SqlSessionTemplate を置き換えないため)
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final SingleFlight singleFlight;
+
+    public EmployeesBatchRepository(SqlSessionFactory sqlSessionFactory, SingleFlight singleFlight) {
+        this.batchSqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.singleFlight = singleFlight;
+    }
+
+    // まとめて追加
+    // 戻り値は行ごとの更新件数 (0 ならメール重複で追加されなかった)
+    // バッチはトランザクションのコミット単位で送られるので、呼び出し側でトランザクションを張ること
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int[] insertAll(List<Employees> employees){
+
+        // 追加した従業員が、コミット前に始まった読み込み (404 や古い一覧) で隠れないように
+        singleFlight.forgetAfterCommit(EmployeesRepository.ITEM_FLIGHT);
+        singleFlight.forgetAfterCommit(EmployeesRepository.LIST_PAGE_FLIGHT);
+
+        EmployeesMapper mapper = batchSqlSessionTemplate.getMapper(EmployeesMapper.class);
+        for (Employees employee : employees) {
+            mapper.insertEmployeeIgnoringDuplicateEmail(employee);
+        }
+
+        int[] counts = new int[employees.size()];
+        int index = 0;
+        for (BatchResult result : batchSqlSessionTemplate.flushStatements()) {
+            for (int count : result.getUpdateCounts()) {
+                counts[index++] = count;
+            }
+        }
+        return counts;
+    }
+}
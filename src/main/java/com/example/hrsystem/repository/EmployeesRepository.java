@@ -1,18 +1,38 @@
 package com.example.hrsystem.repository;
 
+import com.example.hrsystem.dto.BulkMoveRequest;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.EmployeeAssignmentChange;
+import com.example.hrsystem.dto.EmployeeListItem;
+import com.example.hrsystem.dto.EmployeeMatch;
+import com.example.hrsystem.dto.EmployeeSearchCriteria;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.dto.UpdatedEmployee;
 import com.example.hrsystem.mapper.EmployeesMapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+// 1件表示と一覧画面は、同時に来た同じ読み込みを SingleFlight で1回の SQL にまとめる
+// 書き込んだらコミット後に、実行中の読み込みを使わせないようにする (書いた直後の読み込みに古い結果を返さない)
 @Repository
 public class EmployeesRepository {
 
+    // SingleFlight の名前 (hr.single-flight.requests の name タグ)
+    public static final String ITEM_FLIGHT = "employee";
+    public static final String LIST_PAGE_FLIGHT = "employeeListPage";
+
     private final EmployeesMapper employeesMapper;
+    private final SingleFlight singleFlight;
 
-    public EmployeesRepository(EmployeesMapper employeesMapper) {
+    public EmployeesRepository(EmployeesMapper employeesMapper, SingleFlight singleFlight) {
         this.employeesMapper = employeesMapper;
+        this.singleFlight = singleFlight;
     }
 
     // 一覧
@@ -20,24 +40,119 @@ public class EmployeesRepository {
         return employeesMapper.findAllEmployees();
     }
 
+    // ページ取得 (キーセット)
+    public List<Employees> findPage(Long after, int limit){
+        return employeesMapper.findEmployeesPage(after, limit);
+    }
+
+    // 差分同期 ((updatedAt, id) のキーセット)
+    public List<Employees> findUpdatedSince(OffsetDateTime since, Long after, int limit){
+        return employeesMapper.findEmployeesUpdatedSince(since, after, limit);
+    }
+
+    // 名前のあいまい検索
+    public List<EmployeeMatch> findNameMatches(String q, String containsPattern, String prefixPattern,
+                                               boolean fuzzy, int limit){
+        return employeesMapper.findNameMatches(q, containsPattern, prefixPattern, fuzzy, limit);
+    }
+
+    // 条件検索 (キーセット)
+    public List<Employees> search(EmployeeSearchCriteria criteria, String namePattern, int limit){
+        return employeesMapper.searchEmployees(criteria, namePattern, limit);
+    }
+
+    // 全件を1行ずつ処理する (カーソルは読み終わったら必ず閉じる)
+    public void forEach(Consumer<Employees> action){
+        try (Cursor<Employees> cursor = employeesMapper.scanAllEmployees()) {
+            cursor.forEach(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 一覧画面用 (部署名付き。行は record なので、リストだけをそれぞれ変更不可で渡す)
+    public List<EmployeeListItem> findListItems(String sort, boolean descending, int offset, int limit){
+        return singleFlight.execute(LIST_PAGE_FLIGHT, List.of(sort, descending, offset, limit),
+                () -> employeesMapper.findEmployeeListItems(sort, descending, offset, limit), List::copyOf);
+    }
+
     // 単品表示
     public Employees findById(long id){
-        return employeesMapper.findByEmployeesId(id);
+        return singleFlight.execute(ITEM_FLIGHT, id, () -> employeesMapper.findByEmployeesId(id), Employees::copy);
+    }
+
+    // id を指定して複数件 (順不同)
+    public List<Employees> findByIds(List<Long> ids){
+        return employeesMapper.findEmployeesByIds(ids.toArray(Long[]::new));
+    }
+
+    // 部署に所属する従業員がいるか
+    public boolean existsInDepartment(long departmentId){
+        return employeesMapper.existsInDepartment(departmentId);
     }
 
     // 追加
     public int insert(Employees employee){
+        forgetInFlight();
         return employeesMapper.insertEmployee(employee);
     }
 
-    // 削除
-    public int delete(long id){
+    // COPY 取り込み用のステージングテーブルを作る
+    public void createStaging(){
+        employeesMapper.createEmployeesStaging();
+    }
+
+    // ステージングのうち取り込めない (所属部署がない) 行数
+    public long countRejectedStaging(){
+        return employeesMapper.countRejectedEmployeesStaging();
+    }
+
+    // ステージングから本テーブルへマージ (追加・更新した行数を返す)
+    // 変更履歴は ChangeLog.openStaging() で用意したステージングに SQL の中で書く
+    public long mergeStaging(){
+        forgetInFlight();
+        return employeesMapper.mergeEmployeesStaging();
+    }
+
+    // 削除 (削除した行の所属部署と役職を返す。対象がなければ null)
+    public EmployeeAssignment delete(long id){
+        forgetInFlight();
         return employeesMapper.deleteEmployee(id);
     }
 
-    // 更新
-    public int update(Employees employees){
+    // 存在チェック
+    public boolean existsById(long id){
+        return employeesMapper.existsEmployee(id);
+    }
+
+    // 更新 (更新後の行と更新前の所属部署・役職を返す。対象がなければ null)
+    public UpdatedEmployee update(Employees employees){
+        forgetInFlight();
         return employeesMapper.updateEmployee(employees);
     }
 
+    // 一括異動 (異動した行の変更前後の部署・役職を返す)
+    public List<EmployeeAssignmentChange> move(BulkMoveRequest request){
+        forgetInFlight();
+        return employeesMapper.moveEmployees(request);
+    }
+
+    // 役職の一括変更
+    public List<EmployeeAssignmentChange> updatePositions(List<Long> ids, String position){
+        forgetInFlight();
+        return employeesMapper.updatePositions(ids.toArray(Long[]::new), position);
+    }
+
+    // 一括削除
+    public List<EmployeeAssignmentChange> deleteAll(List<Long> ids){
+        forgetInFlight();
+        return employeesMapper.deleteEmployees(ids.toArray(Long[]::new));
+    }
+
+    // 書き込みのコミット後は、コミット前に始まった読み込みの結果を使わせない
+    private void forgetInFlight(){
+        singleFlight.forgetAfterCommit(ITEM_FLIGHT);
+        singleFlight.forgetAfterCommit(LIST_PAGE_FLIGHT);
+    }
+
 }
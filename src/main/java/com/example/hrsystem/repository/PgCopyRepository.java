@@ -0,0 +1,44 @@
+package com.example.hrsystem.repository;
+
+import com.example.hrsystem.exception.BadRequestException;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Repository
+public class PgCopyRepository {
+
+    private final DataSource dataSource;
+
+    public PgCopyRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // COPY ... FROM STDIN でストリームをそのまま流し込む
+    // MyBatis と同じコネクションを使うので、一時テーブルの作成やマージと同じトランザクションで呼ぶこと
+    // 戻り値は読み込んだ行数
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long copyIn(String copySql, InputStream data){
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, data);
+        } catch (SQLException e) {
+            // CSV の形式不正や必須項目の欠落など。PostgreSQL のメッセージに行番号が含まれる
+            throw new BadRequestException("CSVの取り込みに失敗しました: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.hrsystem.repository;
+
+import com.example.hrsystem.config.PrimaryReads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// 同じ読み込みが同時に来たときに、SQL を1回だけ実行して結果を分け合う (single-flight)
+// 共有ページへのアクセス集中で、同じ部署・同じ従業員の SELECT が一度に何百本も飛ぶのを防ぐ
+// 先に来たリクエスト (leader) が SQL を実行し、その間に来た同じキーのリクエスト (follower) は結果を待つだけ
+// 結果は実行中だけ共有し、終わったら捨てる (キャッシュではないので古いデータが残り続けることはない)
+// 共有した結果は、leader も follower もそれぞれ複製を受け取る (同じインスタンスを渡すと、1人の変更が全員に見えてしまう)
+//
+// hr.single-flight.requests (name=..., role=leader|follower|bypass) に件数を記録する。follower の割合がまとめられた割合
+@Component
+public class SingleFlight {
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // 毎回 Counter を探さないように name ごとに持っておく
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public SingleFlight(@Value("${hr.single-flight.enabled:true}") boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // name と key が同じ読み込みが実行中ならその結果を待ち、なければ loader を実行する
+    // 結果 (null 以外) は copy で複製して返す。変更できない結果なら複製しない copy でよい
+    // 更新中のトランザクションの中では、自分の変更が見えなくなるのでまとめない (読み取り専用のトランザクションはまとめる)
+    // プライマリに固定中 (PrimaryReads) もまとめない。レプリカから読んでいる leader の結果を受け取ると、固定した意味がなくなる
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader, UnaryOperator<T> copy) {
+
+        Counters counter = counters.computeIfAbsent(name, Counters::new);
+        if (!enabled || PrimaryReads.isPinned() || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            counter.bypass.increment();
+            return loader.get();
+        }
+
+        Key flightKey = new Key(name, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            counter.follower.increment();
+            return copyOf((T) await(running), copy);
+        }
+
+        counter.leader.increment();
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            // 元の結果は follower が複製するためにだけ使う
+            return copyOf(result, copy);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    // name の読み込みを、これ以降は新しく実行させる (書き込みのコミット後に呼ぶ)
+    // コミット前に始まった読み込みの結果を、コミット後に来たリクエストが受け取らないようにする
+    public void forgetAfterCommit(String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(name);
+                }
+            });
+        } else {
+            forget(name);
+        }
+    }
+
+    private void forget(String name) {
+        inFlight.keySet().removeIf(key -> key.name().equals(name));
+    }
+
+    private static <T> T copyOf(T result, UnaryOperator<T> copy) {
+        return result != null ? copy.apply(result) : null;
+    }
+
+    // leader の結果を待つ。leader の例外はそのまま投げ直す
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String name, Object key) {
+    }
+
+    // name ごとの件数
+    private final class Counters {
+
+        private final Counter leader;
+        private final Counter follower;
+        private final Counter bypass;
+
+        private Counters(String name) {
+            this.leader = counter(name, "leader");
+            this.follower = counter(name, "follower");
+            this.bypass = counter(name, "bypass");
+        }
+
+        private Counter counter(String name, String role) {
+            return Counter.builder("hr.single-flight.requests")
+                    .description("同時に来た同じ読み込みをまとめた件数 (leader が SQL を実行し、follower はその結果を受け取る)")
+                    .tag("name", name)
+                    .tag("role", role)
+                    .register(meterRegistry);
+        }
+    }
+}
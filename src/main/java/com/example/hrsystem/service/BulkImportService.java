@@ -0,0 +1,406 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.dto.BulkImportResult;
+import com.example.hrsystem.dto.BulkImportResult.RowError;
+import com.example.hrsystem.dto.ChangeEvent.EntityType;
+import com.example.hrsystem.dto.ChangeEvent.Operation;
+import com.example.hrsystem.dto.CopyImportResult;
+import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.repository.DepartmentsRepository;
+import com.example.hrsystem.repository.EmployeesBatchRepository;
+import com.example.hrsystem.repository.EmployeesRepository;
+import com.example.hrsystem.repository.PgCopyRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class BulkImportService {
+
+    // 1回のバッチ送信 (1トランザクション) で扱う行数の上限
+    public static final int MAX_CHUNK_SIZE = 10_000;
+
+    private static final String DUPLICATE_EMAIL_MESSAGE = "このメールアドレスは既に使用されています。";
+
+    // COPY 取り込みで使える CSV の列 (正規化したヘッダー名 → ステージングの列名)
+    private static final Map<String, String> EMPLOYEE_COPY_COLUMNS = Map.of(
+            "lastname", "last_name",
+            "firstname", "first_name",
+            "email", "email",
+            "departmentid", "department_id",
+            "position", "position",
+            "hiredate", "hire_date");
+    private static final Map<String, String> DEPARTMENT_COPY_COLUMNS = Map.of(
+            "name", "name",
+            "location", "location");
+
+    private final EmployeesRepository employeesRepository;
+    private final EmployeesBatchRepository employeesBatchRepository;
+    private final DepartmentsRepository departmentsRepository;
+    private final PgCopyRepository pgCopyRepository;
+    private final HeadcountCounters headcountCounters;
+    private final ChangeLog changeLog;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+
+    public BulkImportService(EmployeesRepository employeesRepository,
+                             EmployeesBatchRepository employeesBatchRepository,
+                             DepartmentsRepository departmentsRepository,
+                             PgCopyRepository pgCopyRepository,
+                             HeadcountCounters headcountCounters,
+                             ChangeLog changeLog,
+                             Validator validator,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${hr.import.chunk-size:500}") int defaultChunkSize) {
+        this.employeesRepository = employeesRepository;
+        this.employeesBatchRepository = employeesBatchRepository;
+        this.departmentsRepository = departmentsRepository;
+        this.pgCopyRepository = pgCopyRepository;
+        this.headcountCounters = headcountCounters;
+        this.changeLog = changeLog;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    // JSON 配列からの一括登録
+    public BulkImportResult importEmployees(List<Employees> employees, Integer chunkSize){
+
+        if (employees == null || employees.isEmpty()) {
+            throw new BadRequestException("登録する従業員が1件もありません。");
+        }
+
+        Importer importer = new Importer(resolveChunkSize(chunkSize));
+        for (Employees employee : employees) {
+            importer.accept(employee);
+        }
+        return importer.finish();
+    }
+
+    // CSV からの一括登録
+    // 1行目はヘッダー (lastName,firstName,email,departmentId,position,hireDate。順不同・snake_case 可)
+    // チャンク単位で読みながら登録するので、ファイル全体をメモリに載せない
+    public BulkImportResult importEmployeesCsv(InputStream inputStream, Integer chunkSize){
+
+        Importer importer = new Importer(resolveChunkSize(chunkSize));
+
+        try (PushbackReader reader = new PushbackReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+
+            List<String> header = EmployeesCsv.readRecord(reader);
+            if (header == null) {
+                throw new BadRequestException("CSVが空です。");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(EmployeesCsv.normalizeHeader(header.get(i)), i);
+            }
+            for (String required : List.of("lastname", "firstname", "email", "departmentid", "position", "hiredate")) {
+                if (!columns.containsKey(required)) {
+                    throw new BadRequestException("CSVのヘッダーに必須の列がありません: " + required);
+                }
+            }
+
+            List<String> record;
+            while ((record = EmployeesCsv.readRecord(reader)) != null) {
+                if (EmployeesCsv.isBlank(record)) {
+                    continue;
+                }
+                importer.accept(record, columns);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return importer.finish();
+    }
+
+    // COPY による従業員の高速取り込み
+    // CSV をそのまま一時テーブルへ COPY し、メールアドレスをキーに本テーブルへ1文でマージする
+    // 1行でも形式が不正なら全体をロールバックする (行ごとのエラーが欲しい場合は importEmployeesCsv を使う)
+    @Transactional
+    public CopyImportResult copyEmployeesCsv(InputStream inputStream){
+
+        BufferedInputStream csv = new BufferedInputStream(inputStream);
+        String columns = readCopyColumns(csv, EMPLOYEE_COPY_COLUMNS);
+
+        employeesRepository.createStaging();
+        long staged = pgCopyRepository.copyIn(
+                "COPY employees_staging (" + columns + ") FROM STDIN WITH (FORMAT csv)", csv);
+        long rejected = employeesRepository.countRejectedStaging();
+        changeLog.openStaging();
+        long merged = employeesRepository.mergeStaging();
+        // 追加と更新 (部署の移動) が混ざっていて増減が分からないので、コミット後に人数カウンターを DB と突き合わせる
+        headcountCounters.reconcileAfterCommit();
+
+        return new CopyImportResult(staged, merged, rejected);
+    }
+
+    // COPY による部署の高速取り込み (部署名をキーにマージ)
+    @Transactional
+    public CopyImportResult copyDepartmentsCsv(InputStream inputStream){
+
+        BufferedInputStream csv = new BufferedInputStream(inputStream);
+        String columns = readCopyColumns(csv, DEPARTMENT_COPY_COLUMNS);
+
+        departmentsRepository.createStaging();
+        long staged = pgCopyRepository.copyIn(
+                "COPY departments_staging (" + columns + ") FROM STDIN WITH (FORMAT csv)", csv);
+        changeLog.openStaging();
+        long merged = departmentsRepository.mergeStaging();
+
+        return new CopyImportResult(staged, merged, 0);
+    }
+
+    // CSV のヘッダー行だけを読み、COPY に渡す列リストを作る
+    // ストリームはヘッダーの直後から COPY にそのまま渡すので、改行までしか読まない
+    private String readCopyColumns(InputStream csv, Map<String, String> allowedColumns){
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try {
+            int b;
+            while ((b = csv.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<String> header;
+        try {
+            header = EmployeesCsv.readRecord(new PushbackReader(new StringReader(line.toString(StandardCharsets.UTF_8))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (header == null || EmployeesCsv.isBlank(header)) {
+            throw new BadRequestException("CSVが空です。");
+        }
+
+        // 列名は固定の対応表から引くので、ヘッダーの文字列が SQL に入ることはない
+        Set<String> columns = new LinkedHashSet<>();
+        for (String name : header) {
+            String column = allowedColumns.get(EmployeesCsv.normalizeHeader(name));
+            if (column == null) {
+                throw new BadRequestException("CSVのヘッダーに取り込めない列があります: " + name.strip());
+            }
+            if (!columns.add(column)) {
+                throw new BadRequestException("CSVのヘッダーに同じ列が2回あります: " + name.strip());
+            }
+        }
+        if (columns.size() != allowedColumns.size()) {
+            throw new BadRequestException("CSVのヘッダーには次の列がすべて必要です: " + allowedColumns.keySet());
+        }
+
+        return String.join(",", columns);
+    }
+
+    private int resolveChunkSize(Integer chunkSize){
+        int size = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (size <= 0 || size > MAX_CHUNK_SIZE) {
+            throw new BadRequestException("chunkSizeは1から" + MAX_CHUNK_SIZE + "の範囲で指定してください。");
+        }
+        return size;
+    }
+
+    // 1回の取り込みの状態 (検証 → チャンクにためる → バッチで登録)
+    private class Importer {
+
+        private final int chunkSize;
+        private final Set<Long> departmentIds = new HashSet<>();
+        // ファイル内で同じメールアドレスが2回出てきた場合の検出用
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<Employees> chunk = new ArrayList<>();
+        private final List<Integer> chunkRows = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private final Set<Integer> failedRows = new HashSet<>();
+        private int received;
+        private int inserted;
+
+        Importer(int chunkSize) {
+            this.chunkSize = chunkSize;
+            // 部署は件数が少ないので、存在チェック用に最初に1回だけ読む
+            for (Departments department : departmentsRepository.findAll()) {
+                departmentIds.add(department.getId());
+            }
+        }
+
+        // CSV の1行
+        void accept(List<String> record, Map<String, Integer> columns) {
+            int row = ++received;
+            Employees employee = new Employees();
+            employee.setLastName(value(record, columns, "lastname"));
+            employee.setFirstName(value(record, columns, "firstname"));
+            employee.setEmail(value(record, columns, "email"));
+            employee.setPosition(value(record, columns, "position"));
+
+            boolean parsed = true;
+            String departmentId = value(record, columns, "departmentid");
+            if (departmentId != null) {
+                try {
+                    employee.setDepartmentId(Long.parseLong(departmentId));
+                } catch (NumberFormatException e) {
+                    reject(row, "departmentId", "所属部署IDは整数で入力してください");
+                    parsed = false;
+                }
+            }
+            String hireDate = value(record, columns, "hiredate");
+            if (hireDate != null) {
+                try {
+                    employee.setHireDate(LocalDate.parse(hireDate));
+                } catch (DateTimeParseException e) {
+                    reject(row, "hireDate", "入社日は yyyy-MM-dd 形式で入力してください");
+                    parsed = false;
+                }
+            }
+
+            if (parsed) {
+                validateAndQueue(row, employee);
+            }
+        }
+
+        // JSON の1件
+        void accept(Employees employee) {
+            int row = ++received;
+            if (employee == null) {
+                reject(row, null, "従業員データが空です");
+                return;
+            }
+            validateAndQueue(row, employee);
+        }
+
+        BulkImportResult finish() {
+            flush();
+            // バッチで後からエラーになった行もあるので、行番号順に並べ直す
+            errors.sort(Comparator.comparingInt(RowError::row));
+            return new BulkImportResult(received, inserted, failedRows.size(), errors);
+        }
+
+        private void validateAndQueue(int row, Employees employee) {
+
+            // Bean Validation (画面と同じ制約)
+            Set<ConstraintViolation<Employees>> violations = validator.validate(employee);
+            for (ConstraintViolation<Employees> violation : violations) {
+                reject(row, violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            if (!violations.isEmpty()) {
+                return;
+            }
+
+            if (!departmentIds.contains(employee.getDepartmentId())) {
+                reject(row, "departmentId", "指定された所属部署が存在しません");
+                return;
+            }
+            if (!seenEmails.add(employee.getEmail())) {
+                reject(row, "email", "同じメールアドレスが取り込みデータ内で重複しています");
+                return;
+            }
+
+            employee.setId(null);
+            chunk.add(employee);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        // チャンクを1トランザクション・1バッチで登録する
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            try {
+                int[] counts = transactionTemplate.execute(status -> {
+                    int[] insertedCounts = employeesBatchRepository.insertAll(chunk);
+                    List<String> insertedEmails = new ArrayList<>();
+                    for (int i = 0; i < insertedCounts.length; i++) {
+                        if (insertedCounts[i] != 0) {
+                            insertedEmails.add(chunk.get(i).getEmail());
+                        }
+                    }
+                    changeLog.recordInsertedEmployees(insertedEmails);
+                    return insertedCounts;
+                });
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        reject(chunkRows.get(i), "email", DUPLICATE_EMAIL_MESSAGE);
+                    } else {
+                        inserted++;
+                        headcountCounters.added(assignmentOf(chunk.get(i)));
+                    }
+                }
+            } catch (DataAccessException e) {
+                // チャンクはロールバック済み。どの行が原因か分からないので1行ずつ入れ直す
+                for (int i = 0; i < chunk.size(); i++) {
+                    insertOne(chunkRows.get(i), chunk.get(i));
+                }
+            }
+
+            chunk.clear();
+            chunkRows.clear();
+        }
+
+        private void insertOne(int row, Employees employee) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    employeesRepository.insert(employee);
+                    changeLog.record(EntityType.EMPLOYEE, employee.getId(), Operation.INSERT);
+                });
+                inserted++;
+                headcountCounters.added(assignmentOf(employee));
+            } catch (DataAccessException e) {
+                String message = e.getMessage();
+                if (message != null && message.contains("employees_email_key")) {
+                    reject(row, "email", DUPLICATE_EMAIL_MESSAGE);
+                } else {
+                    reject(row, null, "登録処理中にエラーが発生しました");
+                }
+            }
+        }
+
+        private EmployeeAssignment assignmentOf(Employees employee) {
+            return new EmployeeAssignment(employee.getDepartmentId(), employee.getPosition());
+        }
+
+        private void reject(int row, String field, String message) {
+            errors.add(new RowError(row, field, message));
+            failedRows.add(row);
+        }
+
+        private String value(List<String> record, Map<String, Integer> columns, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).strip();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.repository.ChangeLogRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 変更履歴の読み出しと、SSE による変更フィード
+// SSE の購読者には、コミットのたびに「新しい変更がある」ことだけを知らせ、各購読者が自分の続きから DB を読んで送る
+// (送る内容はいつも change_log の seq 順なので、取りこぼしや順序の入れ替わりが起きない)
+@Service
+public class ChangeFeed {
+
+    // GET /api/changes の件数の既定値と上限
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    // SSE で1回に読み出す件数
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final Executor executor;
+    private final long streamTimeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public ChangeFeed(ChangeLogRepository changeLogRepository,
+                      @Qualifier("applicationTaskExecutor") Executor executor,
+                      @Value("${hr.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.changeLogRepository = changeLogRepository;
+        this.executor = executor;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+    }
+
+    // since より後の変更を seq 順に
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> findSince(long since, int limit){
+
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limitは1から" + MAX_LIMIT + "の範囲で指定してください。");
+        }
+        if (since < 0) {
+            throw new BadRequestException("sinceは0以上の整数である必要があります。");
+        }
+
+        return changeLogRepository.findSince(since, limit);
+    }
+
+    // SSE の購読を始める
+    // since (Last-Event-ID) を指定すればその続きから、なければこれから起きる変更だけを送る
+    public SseEmitter subscribe(Long since){
+
+        if (since != null && since < 0) {
+            throw new BadRequestException("sinceは0以上の整数である必要があります。");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since != null ? since : changeLogRepository.latestSeq());
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        // 購読を登録してから追いつく (この間にコミットされた変更も読み出しに含まれる)
+        subscriber.wake();
+        return emitter;
+    }
+
+    // 変更がコミットされた (このサーバーでのコミット)
+    public void notifyCommitted(){
+        for (Subscriber subscriber : subscribers) {
+            subscriber.wake();
+        }
+    }
+
+    // 他のサーバーでコミットされた変更を拾う (notifyCommitted はこのサーバーでコミットしたときしか呼ばれない)
+    // 購読者がいるときだけ最新の seq を1回読み、それより遅れている購読者を起こす (購読者の数だけ SQL を投げない)
+    @Scheduled(fixedDelayString = "${hr.changes.poll-interval:1s}")
+    public void poll(){
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long latestSeq = changeLogRepository.latestSeq();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.lastSeq < latestSeq) {
+                subscriber.wake();
+            }
+        }
+    }
+
+    // 接続が切れた購読者を見つけるため、定期的にコメント行を送る (プロキシのアイドル切断よけも兼ねる)
+    @Scheduled(fixedRateString = "${hr.changes.heartbeat-interval:15s}")
+    public void heartbeat(){
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    // 購読者ごとの送信状態
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        // 最後に送った seq (poll からも読む)
+        private volatile long lastSeq;
+        // 読み出しを予約済みか (コミットが続いても読み出しは1回にまとめる)
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, long lastSeq) {
+            this.emitter = emitter;
+            this.lastSeq = lastSeq;
+        }
+
+        private void wake() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // 続きを最後まで送る
+        private synchronized void drain() {
+            scheduled.set(false);
+            try {
+                List<ChangeEvent> changes;
+                do {
+                    changes = changeLogRepository.findSince(lastSeq, STREAM_BATCH_SIZE);
+                    for (ChangeEvent change : changes) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.seq()))
+                                .name("change")
+                                .data(change, MediaType.APPLICATION_JSON));
+                        lastSeq = change.seq();
+                    }
+                } while (changes.size() == STREAM_BATCH_SIZE);
+            } catch (IOException | RuntimeException e) {
+                // 切断、または DB に読みに行けなかった。クライアントは Last-Event-ID 付きで再接続すれば続きから受け取れる
+                close(e);
+            }
+        }
+
+        private synchronized void heartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                close(e);
+            }
+        }
+
+        private void close(Exception e) {
+            subscribers.remove(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.dto.ChangeEvent.EntityType;
+import com.example.hrsystem.dto.ChangeEvent.Operation;
+import com.example.hrsystem.dto.Tombstone;
+import com.example.hrsystem.repository.ChangeLogRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// 従業員・部署の変更を変更履歴 (change_log) に記録する
+// 記録した変更はトランザクションごとにためておき、コミットの直前にまとめて書き込む
+// コミットされたら変更フィード (SSE) の購読者に知らせる。ロールバックされたら何も残らない
+@Component
+public class ChangeLog {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeFeed changeFeed;
+
+    public ChangeLog(ChangeLogRepository changeLogRepository, ChangeFeed changeFeed) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeFeed = changeFeed;
+    }
+
+    // 1件の変更
+    public void record(EntityType entityType, long entityId, Operation operation){
+        pending().entries.add(new ChangeEvent.Entry(entityType, entityId, operation));
+    }
+
+    // 同じ種類の変更をまとめて (一括更新・COPY 取り込みなど)
+    public void recordAll(EntityType entityType, Collection<Long> entityIds, Operation operation){
+        List<ChangeEvent.Entry> entries = pending().entries;
+        for (long entityId : entityIds) {
+            entries.add(new ChangeEvent.Entry(entityType, entityId, operation));
+        }
+    }
+
+    // COPY 取り込みのマージ用に、変更履歴のステージング (change_log_staging) を用意する
+    // マージの SQL が変わった行をそのままステージングに書くので、行の id を Java に読み込まなくて済む
+    // ステージングの行はコミットの直前に change_log へ移す (seq を振るロックは他の変更と同じく最後に取る)
+    public void openStaging(){
+        Pending pending = pending();
+        if (!pending.staging) {
+            changeLogRepository.createStaging();
+            pending.staging = true;
+        }
+    }
+
+    // JDBC バッチで追加した従業員 (id の代わりにメールアドレスで記録する)
+    public void recordInsertedEmployees(Collection<String> emails){
+        pending().insertedEmployeeEmails.addAll(emails);
+    }
+
+    // since 以降に削除された行 (差分同期の tombstone)
+    public List<Tombstone> findDeletions(EntityType entityType, OffsetDateTime since, Long after, int limit){
+        return changeLogRepository.findDeletions(entityType, since, after, limit);
+    }
+
+    // このトランザクションでためている変更
+    private Pending pending(){
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("変更履歴はデータの変更と同じトランザクションの中で記録してください。");
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private final class Pending implements TransactionSynchronization {
+
+        private final List<ChangeEvent.Entry> entries = new ArrayList<>();
+        private final List<String> insertedEmployeeEmails = new ArrayList<>();
+        private boolean staging;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            changeLogRepository.append(entries, insertedEmployeeEmails, staging);
+        }
+
+        @Override
+        public void afterCommit() {
+            changeFeed.notifyCommitted();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(ChangeLog.this);
+        }
+    }
+}
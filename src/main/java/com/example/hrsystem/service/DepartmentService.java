@@ -1,28 +1,90 @@
 package com.example.hrsystem.service;
 
+import com.example.hrsystem.dto.ChangeEvent.EntityType;
+import com.example.hrsystem.dto.ChangeEvent.Operation;
 import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.Tombstone;
 import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.exception.ConflictException;
+import com.example.hrsystem.exception.PreconditionFailedException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
 import com.example.hrsystem.repository.DepartmentsRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @Service
 public class DepartmentService {
 
+    // 差分同期の1ページあたりの件数の既定値と上限
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // 削除する部署に従業員がいるときの扱い
+    // RESTRICT: 削除しない (409) / REASSIGN: 別の部署へ移してから削除 / UNASSIGN: 未所属にしてから削除
+    public enum DeleteMode {
+        RESTRICT, REASSIGN, UNASSIGN;
+
+        // クエリパラメータの値 (大文字・小文字は問わない)
+        public static DeleteMode of(String value){
+            try {
+                return valueOf(value.strip().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("modeはrestrict, reassign, unassignのいずれかを指定してください。");
+            }
+        }
+    }
+
     private final DepartmentsRepository departmentsRepository;
+    private final EmployeesService employeesService;
+    private final ChangeLog changeLog;
 
-    public DepartmentService(DepartmentsRepository departmentsRepository) {
+    public DepartmentService(DepartmentsRepository departmentsRepository, EmployeesService employeesService,
+                             ChangeLog changeLog) {
         this.departmentsRepository = departmentsRepository;
+        this.employeesService = employeesService;
+        this.changeLog = changeLog;
     }
 
     // 一覧
+    @Transactional(readOnly = true)
     public List<Departments> findAll(){
         return departmentsRepository.findAll();
     }
 
+    // 部署データの版 (追加・更新・削除がコミットされるたびに変わる)
+    public long dataVersion(){
+        return departmentsRepository.dataVersion();
+    }
+
+    // 差分同期: since 以降に追加・更新された部署 ((updatedAt, id) のキーセット)
+    @Transactional(readOnly = true)
+    public List<Departments> findUpdatedSince(OffsetDateTime since, Long after, int limit){
+        validateDeltaPage(after, limit);
+        return departmentsRepository.findUpdatedSince(since, after, limit);
+    }
+
+    // 差分同期: since 以降に削除された部署 (seq のキーセット)
+    @Transactional(readOnly = true)
+    public List<Tombstone> findDeletedSince(OffsetDateTime since, Long after, int limit){
+        validateDeltaPage(after, limit);
+        return changeLog.findDeletions(EntityType.DEPARTMENT, since, after, limit);
+    }
+
+    private static void validateDeltaPage(Long after, int limit){
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limitは1から" + MAX_PAGE_SIZE + "の範囲で指定してください。");
+        }
+        if (after != null && after < 0) {
+            throw new BadRequestException("afterは0以上の整数である必要があります。");
+        }
+    }
+
     // 単品表示
+    @Transactional(readOnly = true)
     public Departments findById(long id){
         Departments departments = departmentsRepository.findById(id);
         // 見つからないとき
@@ -34,6 +96,7 @@ public class DepartmentService {
     }
 
     // 追加
+    @Transactional
     public Departments insert(Departments department){
         // 名前が空の時
         if (department.getName() == null || department.getName().isEmpty()){
@@ -46,31 +109,69 @@ public class DepartmentService {
         }
 
         departmentsRepository.insert(department);
+        changeLog.record(EntityType.DEPARTMENT, department.getId(), Operation.INSERT);
 
         return department;
     }
 
-    // 削除
+    // 削除 (所属する従業員がいれば 409)
+    @Transactional
     public int deleteById(long id){
+        return deleteById(id, DeleteMode.RESTRICT, null);
+    }
+
+    // 削除 (所属する従業員の扱いを指定する)
+    // 従業員の付け替えと部署の削除を1つのトランザクションで行う。付け替えは1つの UPDATE でまとめて行う
+    @Transactional
+    public int deleteById(long id, DeleteMode mode, Long reassignTo){
 
         // 1. 【バリデーション】IDが論理的に不正な値かチェック (400 Bad Request)
         if (id <= 0) {
             throw new BadRequestException("IDは正の整数である必要があります。");
         }
+        if (mode == DeleteMode.REASSIGN) {
+            if (reassignTo == null) {
+                throw new BadRequestException("mode=reassignのときはreassignToを指定してください。");
+            }
+            if (reassignTo == id) {
+                throw new BadRequestException("reassignToには削除する部署以外を指定してください。");
+            }
+        } else if (reassignTo != null) {
+            throw new BadRequestException("reassignToはmode=reassignのときだけ指定できます。");
+        }
 
-        // 2. 【存在チェック】リソースがDBに存在するかチェック (404 Not Found)
-        if (departmentsRepository.findById(id) == null){
+        // 2. 部署の行をロックし、存在チェックを兼ねる (404 Not Found)
+        //    ロック中は他のトランザクションがこの部署に従業員を追加・異動できないので、確認と削除の間に増えることはない
+        if (!departmentsRepository.lock(id)) {
             throw new ResourceNotFoundException(id);
         }
 
-        // 3. 存在が確認できたら削除を実行
-        //    ※ 成功すれば 1 が返る。失敗しても、事前チェックを通過しているため、
-        //       DBエラーとして Spring が 500 Internal Server Error に処理します。
-        return departmentsRepository.deleteById(id);
+        // 3. 所属する従業員の扱い (従業員は読み込まず、EXISTS / UPDATE だけで済ませる)
+        switch (mode) {
+            case RESTRICT -> {
+                if (employeesService.existsInDepartment(id)) {
+                    throw new ConflictException("部署" + id + "には所属する従業員がいるため削除できません。"
+                            + "mode=reassign (reassignTo) か mode=unassign を指定してください。");
+                }
+            }
+            case REASSIGN -> {
+                if (!departmentsRepository.existsById(reassignTo)) {
+                    throw new BadRequestException("移動先の部署が存在しません: " + reassignTo);
+                }
+                employeesService.reassignDepartment(id, reassignTo);
+            }
+            case UNASSIGN -> employeesService.reassignDepartment(id, null);
+        }
+
+        int deleted = departmentsRepository.deleteById(id);
+        changeLog.record(EntityType.DEPARTMENT, id, Operation.DELETE);
+
+        return deleted;
     }
 
     // 更新
     // DepartmentService.java (推奨される形)
+    @Transactional
     public Departments update(long id, Departments department){
 
         // 名前が空の時
@@ -83,15 +184,17 @@ public class DepartmentService {
             throw new BadRequestException("location isn't empty");
         }
 
-        // 見つからないとき
-        if (departmentsRepository.findById(id) == null){
+        department.setId(id);
+        // 3. Repositoryに処理を依頼 (UPDATE ... RETURNING で更新後の最新データも一緒に受け取る)
+        Departments updated = departmentsRepository.update(department);
+        // 4. 更新対象がなかったら 404。あるのに更新できなかったのは版が古いので 412
+        if (updated == null){
+            if (department.getVersion() != null && departmentsRepository.existsById(id)){
+                throw new PreconditionFailedException(id);
+            }
             throw new ResourceNotFoundException(id);
         }
-
-        department.setId(id);
-        // 3. Repositoryに処理を依頼
-        departmentsRepository.update(department);
-        // 4. 更新後の最新データをDBから取得し直して返す
-        return departmentsRepository.findById(id);
+        changeLog.record(EntityType.DEPARTMENT, id, Operation.UPDATE);
+        return updated;
     }
 }
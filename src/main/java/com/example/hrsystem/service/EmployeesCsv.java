@@ -0,0 +1,110 @@
+package com.example.hrsystem.service;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// 従業員 CSV の読み書き用
+// RFC 4180 相当 (ダブルクォート囲み・"" のエスケープ・囲みの中の改行) に対応する
+final class EmployeesCsv {
+
+    private EmployeesCsv() {
+    }
+
+    // 1レコード分を読み込む。ファイル終端なら null を返す
+    static List<String> readRecord(PushbackReader reader) throws IOException {
+
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // 閉じクォートがないまま終わった場合は、そこまでを値とする
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else {
+                if (c == -1 || c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '\r') {
+                    int next = reader.read();
+                    if (next != '\n' && next != -1) {
+                        reader.unread(next);
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            c = reader.read();
+        }
+    }
+
+    // 1レコード分を書き出す (改行は CRLF)
+    static void writeRecord(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escape(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // カンマ・ダブルクォート・改行を含む値はダブルクォートで囲む
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // 空行 (値が1つだけで空) かどうか
+    static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.get(0).isBlank();
+    }
+
+    // ヘッダー名の正規化 (last_name / lastName / LASTNAME を同じ列として扱う)
+    static String normalizeHeader(String header) {
+        String name = header.strip();
+        // 先頭の BOM を取り除く
+        if (!name.isEmpty() && name.charAt(0) == '\uFEFF') {
+            name = name.substring(1);
+        }
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
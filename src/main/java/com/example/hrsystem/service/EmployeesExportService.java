@@ -0,0 +1,85 @@
+package com.example.hrsystem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Service
+public class EmployeesExportService {
+
+    // 書き出しバッファ。これがいっぱいになるたびにレスポンスへ送る
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final EmployeesService employeesService;
+    // 1行ごとに flush しないようにしておく
+    private final ObjectWriter rowWriter;
+
+    public EmployeesExportService(EmployeesService employeesService, ObjectMapper objectMapper) {
+        this.employeesService = employeesService;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // CSV で全件を書き出す
+    // 1行目はヘッダー。列名は一括登録 (POST /api/employees/bulk) の CSV と同じなので、そのまま取り込み直せる
+    public void writeCsv(OutputStream outputStream) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        EmployeesCsv.writeRecord(writer, "id", "lastName", "firstName", "email", "departmentId",
+                "position", "hireDate", "createdAt", "updatedAt");
+
+        employeesService.streamAll(employee -> {
+            try {
+                EmployeesCsv.writeRecord(writer, employee.getId(), employee.getLastName(), employee.getFirstName(),
+                        employee.getEmail(), employee.getDepartmentId(), employee.getPosition(),
+                        employee.getHireDate(), employee.getCreatedAt(), employee.getUpdatedAt());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        writer.flush();
+    }
+
+    // NDJSON (1行に1件のJSON) で全件を書き出す
+    public void writeNdjson(OutputStream outputStream) throws IOException {
+
+        JsonGenerator generator = rowWriter.createGenerator(outputStream);
+
+        employeesService.streamAll(employee -> {
+            try {
+                rowWriter.writeValue(generator, employee);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        generator.flush();
+    }
+
+    // 書き出し形式
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        // リクエストパラメータから変換する (大文字・小文字は区別しない)。不明なら null
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,28 +1,207 @@
 package com.example.hrsystem.service;
 
+import com.example.hrsystem.dto.ChangeEvent.EntityType;
+import com.example.hrsystem.dto.ChangeEvent.Operation;
+import com.example.hrsystem.dto.BulkMoveRequest;
+import com.example.hrsystem.dto.BulkUpdateResult;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.EmployeeAssignmentChange;
+import com.example.hrsystem.dto.EmployeeListItem;
+import com.example.hrsystem.dto.EmployeeListPage;
+import com.example.hrsystem.dto.EmployeeLookupResult;
+import com.example.hrsystem.dto.EmployeeMatch;
+import com.example.hrsystem.dto.EmployeeSearchCriteria;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.dto.Tombstone;
+import com.example.hrsystem.dto.UpdatedEmployee;
 import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.exception.PreconditionFailedException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
+import com.example.hrsystem.repository.DepartmentsRepository;
 import com.example.hrsystem.repository.EmployeesRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class EmployeesService {
 
+    // 1ページあたりの件数の既定値と上限
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // 一覧画面で並び替えに使える項目
+    public static final Set<String> LIST_SORT_KEYS =
+            Set.of("id", "lastName", "email", "departmentName", "position", "hireDate");
+    public static final int DEFAULT_LIST_PAGE_SIZE = 50;
+    public static final int MAX_LIST_PAGE_SIZE = 200;
+    // ページ番号の上限 (OFFSET = (page - 1) * size が int に収まるように。超えたら最後のページ番号として扱う)
+    public static final int MAX_LIST_PAGE = Integer.MAX_VALUE / MAX_LIST_PAGE_SIZE;
+
+    // 名前のあいまい検索で返す候補数の既定値と上限
+    public static final int DEFAULT_TYPEAHEAD_LIMIT = 10;
+    public static final int MAX_TYPEAHEAD_LIMIT = 50;
+    // これより長い入力は無視する (トライグラムの数が増えるだけで絞り込みに効かない)
+    private static final int MAX_TYPEAHEAD_QUERY_LENGTH = 50;
+
+    // 一括更新・一括削除で1回に指定できる id の数
+    public static final int MAX_BULK_IDS = 10_000;
+
     private final EmployeesRepository employeesRepository;
+    private final DepartmentsRepository departmentsRepository;
+    private final HeadcountCounters headcountCounters;
+    private final ChangeLog changeLog;
 
-    public EmployeesService(EmployeesRepository employeesRepository) {
+    public EmployeesService(EmployeesRepository employeesRepository, DepartmentsRepository departmentsRepository,
+                            HeadcountCounters headcountCounters, ChangeLog changeLog) {
         this.employeesRepository = employeesRepository;
+        this.departmentsRepository = departmentsRepository;
+        this.headcountCounters = headcountCounters;
+        this.changeLog = changeLog;
     }
 
     // 一覧
+    @Transactional(readOnly = true)
     public List<Employees> findAll(){
         return employeesRepository.findAll();
     }
 
+    // ページ取得 (idのキーセットページング)
+    @Transactional(readOnly = true)
+    public List<Employees> findPage(Long after, int limit){
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limitは1から" + MAX_PAGE_SIZE + "の範囲で指定してください。");
+        }
+        if (after != null && after < 0) {
+            throw new BadRequestException("afterは0以上の整数である必要があります。");
+        }
+
+        return employeesRepository.findPage(after, limit);
+    }
+
+    // 差分同期: since 以降に追加・更新された従業員 ((updatedAt, id) のキーセット)
+    // updated_at はトランザクション開始時刻なので、長いトランザクションの変更は後から過去の時刻で現れることがある
+    // 取りこぼしたくない場合は、前回の updatedSince から少し戻して取り直すか、変更履歴 (/api/changes) を使う
+    @Transactional(readOnly = true)
+    public List<Employees> findUpdatedSince(OffsetDateTime since, Long after, int limit){
+        validateDeltaPage(after, limit);
+        return employeesRepository.findUpdatedSince(since, after, limit);
+    }
+
+    // 差分同期: since 以降に削除された従業員 (seq のキーセット)
+    @Transactional(readOnly = true)
+    public List<Tombstone> findDeletedSince(OffsetDateTime since, Long after, int limit){
+        validateDeltaPage(after, limit);
+        return changeLog.findDeletions(EntityType.EMPLOYEE, since, after, limit);
+    }
+
+    private static void validateDeltaPage(Long after, int limit){
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limitは1から" + MAX_PAGE_SIZE + "の範囲で指定してください。");
+        }
+        if (after != null && after < 0) {
+            throw new BadRequestException("afterは0以上の整数である必要があります。");
+        }
+    }
+
+    // 条件検索 (キーセット)
+    // limit を省略した場合は DEFAULT_PAGE_SIZE 件。空文字の条件は指定なしとして扱う
+    @Transactional(readOnly = true)
+    public List<Employees> search(EmployeeSearchCriteria criteria){
+
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : DEFAULT_PAGE_SIZE;
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limitは1から" + MAX_PAGE_SIZE + "の範囲で指定してください。");
+        }
+        if (criteria.getAfter() != null && criteria.getAfter() < 0) {
+            throw new BadRequestException("afterは0以上の整数である必要があります。");
+        }
+        if (criteria.getHireDateFrom() != null && criteria.getHireDateTo() != null
+                && criteria.getHireDateFrom().isAfter(criteria.getHireDateTo())) {
+            throw new BadRequestException("hireDateFromはhireDateTo以前の日付を指定してください。");
+        }
+
+        criteria.setPosition(trimToNull(criteria.getPosition()));
+        String name = trimToNull(criteria.getName());
+        String namePattern = name != null ? escapeLike(name) + "%" : null;
+
+        return employeesRepository.search(criteria, namePattern, limit);
+    }
+
+    // 名前のあいまい検索 (typeahead)
+    // まず部分一致 (短い入力は前方一致) で探し、1件もなければ類似度で探し直す (打ち間違い用。2回目も同じ接続で投げる)
+    // 入力が空なら DB には問い合わせずに空のリストを返す
+    @Transactional(readOnly = true)
+    public List<EmployeeMatch> typeahead(String q, int limit){
+
+        if (limit <= 0 || limit > MAX_TYPEAHEAD_LIMIT) {
+            throw new BadRequestException("limitは1から" + MAX_TYPEAHEAD_LIMIT + "の範囲で指定してください。");
+        }
+        String query = trimToNull(q);
+        if (query == null) {
+            return List.of();
+        }
+        if (query.length() > MAX_TYPEAHEAD_QUERY_LENGTH) {
+            query = query.substring(0, MAX_TYPEAHEAD_QUERY_LENGTH);
+        }
+
+        String escaped = escapeLike(query);
+        List<EmployeeMatch> matches = employeesRepository.findNameMatches(
+                query, "%" + escaped + "%", escaped + "%", false, limit);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        return employeesRepository.findNameMatches(query, null, null, true, limit);
+    }
+
+    // 一覧画面用のページ取得 (部署名付き)
+    // 1件余分に読んで次ページの有無を判定するので COUNT(*) は投げない
+    @Transactional(readOnly = true)
+    public EmployeeListPage findListPage(int page, int size, String sort, String dir){
+
+        int safePage = Math.min(Math.max(page, 1), MAX_LIST_PAGE);
+        int safeSize = (size <= 0 || size > MAX_LIST_PAGE_SIZE) ? DEFAULT_LIST_PAGE_SIZE : size;
+        String safeSort = LIST_SORT_KEYS.contains(sort) ? sort : "id";
+        boolean descending = "desc".equalsIgnoreCase(dir);
+
+        List<EmployeeListItem> rows = employeesRepository.findListItems(
+                safeSort, descending, (safePage - 1) * safeSize, safeSize + 1);
+
+        boolean hasNext = rows.size() > safeSize;
+        List<EmployeeListItem> items = hasNext ? rows.subList(0, safeSize) : rows;
+
+        return new EmployeeListPage(items, safePage, safeSize, safeSort, descending ? "desc" : "asc", hasNext);
+    }
+
+    // LIKE の特殊文字 (\ % _) をエスケープする (PostgreSQL の既定のエスケープ文字は \)
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.strip();
+    }
+
+    // 全件ストリーミング
+    // カーソルはトランザクションが続いている間だけ読めるので、読み終わるまでここで抱える
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Employees> action){
+        employeesRepository.forEach(action);
+    }
+
     // 単品表示
+    @Transactional(readOnly = true)
     public Employees findById(long id){
 
         Employees employees = employeesRepository.findById(id);
@@ -34,7 +213,25 @@ public class EmployeesService {
         return employees;
     }
 
+    // id を指定して複数件 (1回の SELECT でまとめて引く)
+    // 結果は指定された id の順に並べ、見つからなかった id も返す
+    @Transactional(readOnly = true)
+    public EmployeeLookupResult findByIds(List<Long> ids){
+
+        List<Long> targets = validateIds(ids, MAX_PAGE_SIZE);
+
+        Map<Long, Employees> found = new HashMap<>();
+        for (Employees employee : employeesRepository.findByIds(targets)) {
+            found.put(employee.getId(), employee);
+        }
+
+        List<Employees> employees = targets.stream().filter(found::containsKey).map(found::get).toList();
+        List<Long> notFound = targets.stream().filter(id -> !found.containsKey(id)).toList();
+        return new EmployeeLookupResult(employees, notFound);
+    }
+
     // 追加
+    @Transactional
     public Employees insert(Employees employee){
 
         // 名前が空の時
@@ -56,11 +253,14 @@ public class EmployeesService {
 //        }
 
         employeesRepository.insert(employee);
+        headcountCounters.added(new EmployeeAssignment(employee.getDepartmentId(), employee.getPosition()));
+        changeLog.record(EntityType.EMPLOYEE, employee.getId(), Operation.INSERT);
 
         return employee;
     }
 
     // 削除
+    @Transactional
     public int delete(long id){
 
         // 1. 【バリデーション】IDが論理的に不正な値かチェック (400 Bad Request)
@@ -68,18 +268,22 @@ public class EmployeesService {
             throw new BadRequestException("IDは正の整数である必要があります。");
         }
 
-        // 2. 【存在チェック】リソースがDBに存在するかチェック (404 Not Found)
-        if (employeesRepository.findById(id) == null){
+        // 2. 削除を実行し、消えた件数で存在チェックを兼ねる (404 Not Found)
+        //    事前に SELECT しないので、同時に削除された場合も正しく 404 になる
+        //    消した行の所属部署・役職で人数カウンターを減らす
+        EmployeeAssignment deleted = employeesRepository.delete(id);
+        if (deleted == null){
             throw new ResourceNotFoundException(id);
         }
+        headcountCounters.removed(deleted);
+        changeLog.record(EntityType.EMPLOYEE, id, Operation.DELETE);
 
-        // 3. 存在が確認できたら削除を実行
-        //    ※ 成功すれば 1 が返る。失敗しても、事前チェックを通過しているため、
-        //       DBエラーとして Spring が 500 Internal Server Error に処理します。
-        return employeesRepository.delete(id);
+        return 1;
     }
 
     // 更新
+    // 更新前の部署・役職は UPDATE と同じ文で受け取る (人数カウンターの付け替え用)
+    @Transactional
     public Employees update(long id,Employees employees){
 
         // 名前が空の時
@@ -99,19 +303,121 @@ public class EmployeesService {
             throw new BadRequestException(" hireDate isn't empty ");
         }
 
-        if (employeesRepository.findById(id) == null){
+        // 必須 1: IDを設定
+        employees.setId(id);
+
+        // 必須 2: 更新実行 (UPDATE ... RETURNING で最新データも一緒に受け取る)
+        UpdatedEmployee updated = employeesRepository.update(employees);
+        // 必須 3: 更新対象がなかったら 404。あるのに更新できなかったのは版が古いので 412
+        if (updated == null){
+            if (employees.getVersion() != null && employeesRepository.existsById(id)){
+                throw new PreconditionFailedException(id);
+            }
             throw new ResourceNotFoundException(id);
         }
 
-        // 必須 1: IDを設定
-        employees.setId(id);
+        headcountCounters.moved(updated.before(), updated.after());
+        changeLog.record(EntityType.EMPLOYEE, id, Operation.UPDATE);
+        return updated.getEmployee();
+
+    }
+
+    // 一括異動
+    // 条件に合う従業員を1つの UPDATE でまとめて異動先の部署へ移す (全員を移してしまわないよう、条件は1つ以上必須)
+    @Transactional
+    public BulkUpdateResult move(BulkMoveRequest request){
+
+        if (request.getToDepartmentId() == null) {
+            throw new BadRequestException("toDepartmentIdを指定してください。");
+        }
+        request.setPosition(trimToNull(request.getPosition()));
+        if (request.getDepartmentId() == null && request.getPosition() == null
+                && request.getHireDateFrom() == null && request.getHireDateTo() == null) {
+            throw new BadRequestException("異動する従業員の条件を1つ以上指定してください。");
+        }
+        if (request.getHireDateFrom() != null && request.getHireDateTo() != null
+                && request.getHireDateFrom().isAfter(request.getHireDateTo())) {
+            throw new BadRequestException("hireDateFromはhireDateTo以前の日付を指定してください。");
+        }
+        if (!departmentsRepository.existsById(request.getToDepartmentId())) {
+            throw new BadRequestException("異動先の部署が存在しません: " + request.getToDepartmentId());
+        }
+
+        List<EmployeeAssignmentChange> changes = employeesRepository.move(request);
+        return applied(List.of(), changes, Operation.UPDATE);
+    }
+
+    // 部署の削除に合わせて、所属する従業員をまとめて別の部署へ移す (toDepartmentId が null なら未所属にする)
+    // 部署のロックと存在確認は呼び出し側 (DepartmentService) で済ませておく
+    @Transactional
+    public long reassignDepartment(long departmentId, Long toDepartmentId){
+
+        BulkMoveRequest request = new BulkMoveRequest();
+        request.setDepartmentId(departmentId);
+        request.setToDepartmentId(toDepartmentId);
+
+        List<EmployeeAssignmentChange> changes = employeesRepository.move(request);
+        return applied(List.of(), changes, Operation.UPDATE).affected();
+    }
+
+    // 部署に所属する従業員がいるか
+    @Transactional(readOnly = true)
+    public boolean existsInDepartment(long departmentId){
+        return employeesRepository.existsInDepartment(departmentId);
+    }
+
+    // 役職の一括変更
+    @Transactional
+    public BulkUpdateResult updatePositions(List<Long> ids, String position){
+
+        List<Long> targets = validateIds(ids, MAX_BULK_IDS);
+        String newPosition = trimToNull(position);
+        if (newPosition == null) {
+            throw new BadRequestException(" position isn't empty");
+        }
+
+        List<EmployeeAssignmentChange> changes = employeesRepository.updatePositions(targets, newPosition);
+        return applied(targets, changes, Operation.UPDATE);
+    }
+
+    // 一括削除
+    @Transactional
+    public BulkUpdateResult deleteAll(List<Long> ids){
+
+        List<Long> targets = validateIds(ids, MAX_BULK_IDS);
+
+        List<EmployeeAssignmentChange> changes = employeesRepository.deleteAll(targets);
+        return applied(targets, changes, Operation.DELETE);
+    }
+
+    // 指定された id (重複は1つにまとめ、最初に出てきた順を残す)
+    private static List<Long> validateIds(List<Long> ids, int max){
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("idsを指定してください。");
+        }
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new BadRequestException("IDは正の整数である必要があります。");
+            }
+            distinct.add(id);
+        }
+        if (distinct.size() > max) {
+            throw new BadRequestException("idsは" + max + "件以内で指定してください。");
+        }
+        return List.copyOf(distinct);
+    }
 
-        // 必須 2: 更新実行
-        employeesRepository.update(employees);
+    // 変わった行を人数カウンターと変更履歴に反映し、見つからなかった id を結果に入れる
+    private BulkUpdateResult applied(List<Long> ids, List<EmployeeAssignmentChange> changes, Operation operation){
 
-        // 必須 3: 最新データを取得して返す
-        return employeesRepository.findById(id);
+        headcountCounters.changed(changes);
+        List<Long> changedIds = changes.stream().map(EmployeeAssignmentChange::id).toList();
+        changeLog.recordAll(EntityType.EMPLOYEE, changedIds, operation);
 
+        Set<Long> found = Set.copyOf(changedIds);
+        List<Long> notFound = ids.stream().filter(id -> !found.contains(id)).toList();
+        return new BulkUpdateResult(changes.size(), notFound);
     }
 
 }
@@ -0,0 +1,163 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.dto.AssignmentHeadcount;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.EmployeeAssignmentChange;
+import com.example.hrsystem.dto.HeadcountSnapshot;
+import com.example.hrsystem.mapper.ReportsMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 部署ごと・役職ごとの人数をメモリ上に持つカウンター
+// 従業員の追加・更新・削除のたびに増減させるので、ダッシュボードは DB を見ずに人数を返せる (読み取りはロックなし)
+// 一括取り込みや他のサーバーからの更新でずれる可能性があるので、定期的に DB の人数で置き換える (HeadcountReconciler)
+@Component
+public class HeadcountCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadcountCounters.class);
+
+    private final ReportsMapper reportsMapper;
+    private final TaskScheduler taskScheduler;
+    // 突き合わせのたびに丸ごと差し替える
+    private volatile Counts counts = new Counts(null);
+
+    public HeadcountCounters(ReportsMapper reportsMapper, TaskScheduler taskScheduler) {
+        this.reportsMapper = reportsMapper;
+        this.taskScheduler = taskScheduler;
+    }
+
+    // 従業員が1人増えた
+    public void added(EmployeeAssignment assignment){
+        afterCommit(() -> counts.add(assignment, 1));
+    }
+
+    // 従業員が1人減った
+    public void removed(EmployeeAssignment assignment){
+        afterCommit(() -> counts.add(assignment, -1));
+    }
+
+    // 従業員の部署・役職が変わった (変わっていなければ何もしない)
+    public void moved(EmployeeAssignment before, EmployeeAssignment after){
+        if (before.equals(after)) {
+            return;
+        }
+        afterCommit(() -> {
+            Counts current = counts;
+            current.add(before, -1);
+            current.add(after, 1);
+        });
+    }
+
+    // 一括更新・一括削除で変わった行 (コミット後にまとめて付け替える)
+    public void changed(List<EmployeeAssignmentChange> changes){
+        if (changes.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            Counts current = counts;
+            for (EmployeeAssignmentChange change : changes) {
+                current.add(change.before(), -1);
+                EmployeeAssignment after = change.after();
+                if (after != null) {
+                    current.add(after, 1);
+                }
+            }
+        });
+    }
+
+    // 件数の分からない更新 (COPY のマージなど) の後に、すぐ DB と突き合わせる
+    public void reconcileAfterCommit(){
+        // コミット後のコールバックの中では DB にアクセスしない (終わったトランザクションの接続を使ってしまう)
+        afterCommit(() -> taskScheduler.schedule(this::reconcile, Instant.now()));
+    }
+
+    // 現在の人数
+    public HeadcountSnapshot snapshot(){
+        return counts.snapshot();
+    }
+
+    // DB の人数で置き換える
+    // 集計中にコミットされた更新は次の突き合わせまで反映されないことがある
+    public synchronized void reconcile(){
+
+        Counts reconciled = new Counts(OffsetDateTime.now());
+        for (AssignmentHeadcount row : reportsMapper.headcountByAssignment()) {
+            reconciled.add(new EmployeeAssignment(row.departmentId(), row.position()), row.headcount());
+        }
+
+        Counts previous = counts;
+        counts = reconciled;
+
+        if (previous.reconciledAt != null && previous.total.sum() != reconciled.total.sum()) {
+            log.info("人数カウンターを補正しました: {} -> {}", previous.total.sum(), reconciled.total.sum());
+        }
+    }
+
+    // トランザクション中ならコミットされてから反映する (ロールバックされたら反映しない)
+    private static void afterCommit(Runnable change){
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // カウンター本体
+    private static final class Counts {
+
+        private final OffsetDateTime reconciledAt;
+        private final LongAdder total = new LongAdder();
+        private final LongAdder unassigned = new LongAdder();
+        private final ConcurrentMap<Long, LongAdder> departments = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, LongAdder> positions = new ConcurrentHashMap<>();
+
+        private Counts(OffsetDateTime reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+
+        private void add(EmployeeAssignment assignment, long delta) {
+            total.add(delta);
+            if (assignment.departmentId() == null) {
+                unassigned.add(delta);
+            } else {
+                departments.computeIfAbsent(assignment.departmentId(), id -> new LongAdder()).add(delta);
+            }
+            positions.computeIfAbsent(Objects.requireNonNull(assignment.position()), p -> new LongAdder()).add(delta);
+        }
+
+        private HeadcountSnapshot snapshot() {
+            return new HeadcountSnapshot(total.sum(), unassigned.sum(),
+                    nonZero(departments), nonZero(positions), reconciledAt);
+        }
+
+        private static <K> Map<K, Long> nonZero(Map<K, LongAdder> counters) {
+            Map<K, Long> values = new TreeMap<>();
+            counters.forEach((key, counter) -> {
+                long value = counter.sum();
+                if (value != 0) {
+                    values.put(key, value);
+                }
+            });
+            return values;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.hrsystem.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 人数カウンターを定期的に DB の人数で置き換える (起動直後に1回、その後は reconcile-interval ごと)
+// hr.headcount.reconcile-enabled=false なら動かない (DB のないテストなど。カウンターは起動時の 0 から増減だけする)
+@Component
+@ConditionalOnProperty(name = "hr.headcount.reconcile-enabled", havingValue = "true", matchIfMissing = true)
+public class HeadcountReconciler {
+
+    private final HeadcountCounters headcountCounters;
+
+    public HeadcountReconciler(HeadcountCounters headcountCounters) {
+        this.headcountCounters = headcountCounters;
+    }
+
+    @Scheduled(fixedDelayString = "${hr.headcount.reconcile-interval:1m}")
+    public void reconcile(){
+        headcountCounters.reconcile();
+    }
+}
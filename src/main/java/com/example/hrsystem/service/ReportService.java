@@ -0,0 +1,81 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.dto.DepartmentHeadcount;
+import com.example.hrsystem.dto.HeadcountSnapshot;
+import com.example.hrsystem.dto.MonthlyHires;
+import com.example.hrsystem.dto.OrganizationSummary;
+import com.example.hrsystem.dto.PositionHeadcount;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.mapper.ReportsMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Service
+public class ReportService {
+
+    // 月ごとの入社人数で指定できる期間 (月数) の既定値と上限
+    public static final int DEFAULT_HIRE_MONTHS = 12;
+    public static final int MAX_HIRE_MONTHS = 600;
+
+    private final ReportsMapper reportsMapper;
+    private final HeadcountCounters headcountCounters;
+    // true なら集計済みビュー (employee_summary_mv) から読む。最新の反映は ReportSummaryRefresher の間隔しだい
+    private final boolean useSummary;
+
+    public ReportService(ReportsMapper reportsMapper,
+                         HeadcountCounters headcountCounters,
+                         @Value("${hr.reports.use-summary:false}") boolean useSummary) {
+        this.reportsMapper = reportsMapper;
+        this.headcountCounters = headcountCounters;
+        this.useSummary = useSummary;
+    }
+
+    // メモリ上の人数カウンターの値 (DB には問い合わせない)
+    public HeadcountSnapshot headcount(){
+        return headcountCounters.snapshot();
+    }
+
+    // 部署ごとの人数と平均勤続年数
+    @Transactional(readOnly = true)
+    public List<DepartmentHeadcount> headcountByDepartment(){
+        return reportsMapper.headcountByDepartment(useSummary);
+    }
+
+    // 役職ごとの人数
+    @Transactional(readOnly = true)
+    public List<PositionHeadcount> headcountByPosition(){
+        return reportsMapper.headcountByPosition(useSummary);
+    }
+
+    // 月ごとの入社人数
+    // from / to を省略した場合は、今月までの直近 DEFAULT_HIRE_MONTHS か月
+    @Transactional(readOnly = true)
+    public List<MonthlyHires> hiresPerMonth(YearMonth from, YearMonth to){
+
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(DEFAULT_HIRE_MONTHS - 1);
+
+        if (start.isAfter(end)) {
+            throw new BadRequestException("fromはto以前の月を指定してください。");
+        }
+        if (ChronoUnit.MONTHS.between(start, end) >= MAX_HIRE_MONTHS) {
+            throw new BadRequestException("期間は" + MAX_HIRE_MONTHS + "か月以内で指定してください。");
+        }
+
+        LocalDate firstDay = start.atDay(1);
+        LocalDate lastMonth = end.atDay(1);
+        return reportsMapper.hiresPerMonth(useSummary, firstDay, lastMonth);
+    }
+
+    // 全体の人数と平均勤続年数
+    @Transactional(readOnly = true)
+    public OrganizationSummary summary(){
+        return reportsMapper.summary(useSummary);
+    }
+}
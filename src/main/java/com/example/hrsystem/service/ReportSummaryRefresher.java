@@ -0,0 +1,24 @@
+package com.example.hrsystem.service;
+
+import com.example.hrsystem.mapper.ReportsMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 集計済みビュー (employee_summary_mv) を定期的に作り直す
+// hr.reports.use-summary=true のときだけ動く。集計 API の結果は最大でこの間隔だけ遅れる
+@Component
+@ConditionalOnProperty(name = "hr.reports.use-summary", havingValue = "true")
+public class ReportSummaryRefresher {
+
+    private final ReportsMapper reportsMapper;
+
+    public ReportSummaryRefresher(ReportsMapper reportsMapper) {
+        this.reportsMapper = reportsMapper;
+    }
+
+    @Scheduled(fixedDelayString = "${hr.reports.summary-refresh-interval:5m}")
+    public void refresh(){
+        reportsMapper.refreshSummary();
+    }
+}
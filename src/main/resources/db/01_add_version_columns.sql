@@ -0,0 +1,3 @@
+-- 楽観ロック用の版番号 (更新のたびにアプリ側で +1 する)
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE departments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
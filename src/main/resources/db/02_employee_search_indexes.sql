@@ -0,0 +1,9 @@
+-- 従業員検索 (GET /api/employees/search) 用のインデックス
+-- 条件列の後ろに id を付けて、絞り込み + id 順のキーセットページングを1本のインデックスで済ませる
+-- 本番では書き込みを止めないよう CONCURRENTLY で作る (トランザクションの外で1文ずつ実行すること)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_department_id_id_idx ON employees (department_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_position_id_idx ON employees (position, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_hire_date_id_idx ON employees (hire_date, id);
+-- 姓・名の前方一致 (LIKE 'xxx%') 用。text_pattern_ops ならロケールに関係なく前方一致でインデックスが使える
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_last_name_pattern_idx ON employees (last_name text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_first_name_pattern_idx ON employees (first_name text_pattern_ops);
@@ -0,0 +1,8 @@
+-- 従業員名のあいまい検索 (GET /api/employees/typeahead) 用
+-- pg_trgm は LC_CTYPE が UTF-8 系 (ja_JP.UTF-8 / C.UTF-8 など) のときだけ漢字・かなを文字として扱う
+-- LC_CTYPE=C のデータベースでは日本語名からトライグラムが作られず、インデックスが効かないので注意
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- 「姓 名」の連結に対する GIN インデックス (部分一致 ILIKE '%xx%' と類似度検索 % の両方に使う)
+-- アプリ側の SQL も同じ式 (last_name || ' ' || first_name) で書くこと。式が違うとインデックスが使われない
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_full_name_trgm_idx
+    ON employees USING gin ((last_name || ' ' || first_name) gin_trgm_ops);
@@ -0,0 +1,15 @@
+-- 集計 API (GET /api/reports/*) 用の集計済みビュー (hr.reports.use-summary=true のときに使う)
+-- 「部署 x 役職 x 入社月」ごとの人数と入社日の合計 (1970-01-01 からの日数) を持つ
+-- 行数は従業員数ではなく組み合わせの数で決まるので、従業員が何人いても集計は数ミリ秒で終わる
+-- 入社日の合計から平均勤続年数を計算するので、日付が変わっても作り直す必要はない
+CREATE MATERIALIZED VIEW IF NOT EXISTS employee_summary_mv AS
+SELECT department_id,
+       position,
+       date_trunc('month', hire_date)::date AS hire_month,
+       COUNT(*) AS headcount,
+       SUM(hire_date - DATE '1970-01-01') AS hire_day_sum
+FROM employees
+GROUP BY department_id, position, date_trunc('month', hire_date)::date;
+
+-- REFRESH MATERIALIZED VIEW CONCURRENTLY (読み取りを止めずに作り直す) にはユニークインデックスが必要
+CREATE UNIQUE INDEX IF NOT EXISTS employee_summary_mv_key ON employee_summary_mv (department_id, position, hire_month);
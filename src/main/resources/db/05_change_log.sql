@@ -0,0 +1,11 @@
+-- 変更履歴 (GET /api/changes, /api/changes/stream)
+-- 従業員・部署の追加・更新・削除を、データの変更と同じトランザクションで1行ずつ追記する
+-- seq はコミットの直前にアドバイザリロックを取ってから振るので、コミット順に並ぶ
+-- (読み手が seq をカーソルにしても、後から小さい seq の行が現れることはない)
+CREATE TABLE IF NOT EXISTS change_log (
+    seq         BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL CHECK (entity_type IN ('EMPLOYEE', 'DEPARTMENT')),
+    entity_id   BIGINT      NOT NULL,
+    operation   VARCHAR(10) NOT NULL CHECK (operation IN ('INSERT', 'UPDATE', 'DELETE')),
+    changed_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
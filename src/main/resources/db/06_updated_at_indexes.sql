@@ -0,0 +1,7 @@
+-- 差分同期 (GET /api/employees?updatedSince=, /api/departments?updatedSince=) 用のインデックス
+-- (updated_at, id) の順に並べてキーセットでページングするので、同じ並びのインデックスを1本ずつ作る
+-- 本番では書き込みを止めないよう CONCURRENTLY で作る (トランザクションの外で1文ずつ実行すること)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_updated_at_id_idx ON employees (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS departments_updated_at_id_idx ON departments (updated_at, id);
+-- 削除の記録 (GET /api/employees/deleted, /api/departments/deleted) を日時で引く
+CREATE INDEX CONCURRENTLY IF NOT EXISTS change_log_deletes_idx ON change_log (entity_type, changed_at) WHERE operation = 'DELETE';
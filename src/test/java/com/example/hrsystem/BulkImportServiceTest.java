@@ -0,0 +1,259 @@
+package com.example.hrsystem;
+
+import com.example.hrsystem.dto.BulkImportResult;
+import com.example.hrsystem.dto.BulkImportResult.RowError;
+import com.example.hrsystem.dto.CopyImportResult;
+import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.exception.BadRequestException;
+import com.example.hrsystem.repository.DepartmentsRepository;
+import com.example.hrsystem.repository.EmployeesBatchRepository;
+import com.example.hrsystem.repository.EmployeesRepository;
+import com.example.hrsystem.repository.PgCopyRepository;
+import com.example.hrsystem.service.BulkImportService;
+import com.example.hrsystem.service.ChangeLog;
+import com.example.hrsystem.service.HeadcountCounters;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// 一括登録・COPY 取り込みのサービス (リポジトリは Mockito、検証は本物の Bean Validation を使う)
+public class BulkImportServiceTest {
+
+    private static final String HEADER = "lastName,firstName,email,departmentId,position,hireDate\n";
+
+    private EmployeesRepository employeesRepository;
+    private EmployeesBatchRepository employeesBatchRepository;
+    private DepartmentsRepository departmentsRepository;
+    private PgCopyRepository pgCopyRepository;
+    private HeadcountCounters headcountCounters;
+    private ChangeLog changeLog;
+    private BulkImportService bulkImportService;
+    // insertAll に渡されたチャンク (渡した後に中身が消されるので、呼ばれた時点の複製を取っておく)
+    private final List<List<Employees>> insertedChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        employeesRepository = mock(EmployeesRepository.class);
+        employeesBatchRepository = mock(EmployeesBatchRepository.class);
+        departmentsRepository = mock(DepartmentsRepository.class);
+        pgCopyRepository = mock(PgCopyRepository.class);
+        headcountCounters = mock(HeadcountCounters.class);
+        changeLog = mock(ChangeLog.class);
+        bulkImportService = new BulkImportService(employeesRepository, employeesBatchRepository, departmentsRepository,
+                pgCopyRepository, headcountCounters, changeLog,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 500);
+
+        when(departmentsRepository.findAll()).thenReturn(List.of(department(1L), department(2L)));
+        // exists@example.com は DB に登録済み (ON CONFLICT DO NOTHING で 0 件)
+        when(employeesBatchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Employees> chunk = invocation.getArgument(0);
+            insertedChunks.add(List.copyOf(chunk));
+            return chunk.stream().mapToInt(e -> "exists@example.com".equals(e.getEmail()) ? 0 : 1).toArray();
+        });
+    }
+
+    @Test
+    @DisplayName("CSV: ヘッダーは順不同・snake_case・BOM 付きでもよく、ダブルクォート囲み・\"\" のエスケープ・囲みの中の改行を読める")
+    void testCsvParsingAndQuoting() {
+
+        String csv = "\uFEFFemail,last_name,first_name,department_id,position,hire_date\r\n"
+                + "\"yamada@example.com\",\"山田\",\"太郎\",1,\"課長, 営業\",2020-04-01\r\n"
+                + "\r\n"
+                + "sato@example.com,\"佐\"\"藤\",花子,2,一般,2021-10-01\n"
+                + "suzuki@example.com, 鈴木 ,一郎,2,\"主任\r\n兼務\",2022-04-01";
+
+        BulkImportResult result = bulkImportService.importEmployeesCsv(stream(csv), null);
+
+        assertEquals(new BulkImportResult(3, 3, 0, List.of()), result);
+        assertEquals(1, insertedChunks.size());
+        List<Employees> rows = insertedChunks.get(0);
+        assertEmployee(rows.get(0), "山田", "太郎", "yamada@example.com", 1L, "課長, 営業", "2020-04-01");
+        assertEmployee(rows.get(1), "佐\"藤", "花子", "sato@example.com", 2L, "一般", "2021-10-01");
+        assertEmployee(rows.get(2), "鈴木", "一郎", "suzuki@example.com", 2L, "主任\r\n兼務", "2022-04-01");
+        verify(changeLog, times(1)).recordInsertedEmployees(
+                List.of("yamada@example.com", "sato@example.com", "suzuki@example.com"));
+        verify(headcountCounters, times(3)).added(any());
+    }
+
+    @Test
+    @DisplayName("CSV: 不正な行は行番号付きのエラーにして飛ばし、残りの行は登録する")
+    void testRejectedRows() {
+
+        String csv = HEADER
+                + "山田,太郎,a@example.com,1,一般,2020-04-01\n"
+                + "佐藤,花子,b@example.com,abc,一般,2020-04-01\n"
+                + "鈴木,一郎,c@example.com,1,一般,2020/04/01\n"
+                + ",次郎,d@example.com,1,一般,2020-04-01\n"
+                + "田中,三郎,e@example.com,9,一般,2020-04-01\n"
+                + "高橋,四郎,a@example.com,1,一般,2020-04-01\n"
+                + "伊藤,五郎,exists@example.com,2,一般,2020-04-01\n"
+                + "渡辺,六郎,f@example.com,2,一般,2020-04-01\n";
+
+        // 2行ずつのチャンクで登録する
+        BulkImportResult result = bulkImportService.importEmployeesCsv(stream(csv), 2);
+
+        assertEquals(8, result.received());
+        assertEquals(2, result.inserted());
+        assertEquals(6, result.failed());
+        assertEquals(List.of(
+                new RowError(2, "departmentId", "所属部署IDは整数で入力してください"),
+                new RowError(3, "hireDate", "入社日は yyyy-MM-dd 形式で入力してください"),
+                new RowError(4, "lastName", "姓は必須項目です"),
+                new RowError(5, "departmentId", "指定された所属部署が存在しません"),
+                new RowError(6, "email", "同じメールアドレスが取り込みデータ内で重複しています"),
+                new RowError(7, "email", "このメールアドレスは既に使用されています。")), result.errors());
+
+        // 検証を通った行だけがチャンクに入る
+        assertEquals(List.of(List.of("a@example.com", "exists@example.com"), List.of("f@example.com")),
+                insertedChunks.stream().map(chunk -> chunk.stream().map(Employees::getEmail).toList()).toList());
+        verify(changeLog, times(1)).recordInsertedEmployees(List.of("a@example.com"));
+        verify(changeLog, times(1)).recordInsertedEmployees(List.of("f@example.com"));
+        verify(headcountCounters, times(2)).added(any());
+    }
+
+    @Test
+    @DisplayName("チャンクの登録が失敗したら1行ずつ入れ直し、失敗した行だけをエラーにする")
+    void testChunkFallsBackToSingleRows() {
+
+        when(employeesBatchRepository.insertAll(anyList())).thenThrow(new DataIntegrityViolationException("batch failed"));
+        doAnswer(invocation -> {
+            Employees employee = invocation.getArgument(0);
+            if ("b@example.com".equals(employee.getEmail())) {
+                throw new DuplicateKeyException("duplicate key value violates unique constraint \"employees_email_key\"");
+            }
+            employee.setId(100L);
+            return 1;
+        }).when(employeesRepository).insert(any(Employees.class));
+
+        String csv = HEADER
+                + "山田,太郎,a@example.com,1,一般,2020-04-01\n"
+                + "佐藤,花子,b@example.com,1,一般,2020-04-01\n"
+                + "鈴木,一郎,c@example.com,2,一般,2020-04-01\n";
+        BulkImportResult result = bulkImportService.importEmployeesCsv(stream(csv), null);
+
+        assertEquals(new BulkImportResult(3, 2, 1,
+                List.of(new RowError(2, "email", "このメールアドレスは既に使用されています。"))), result);
+        verify(employeesRepository, times(3)).insert(any(Employees.class));
+        verify(headcountCounters, times(2)).added(any());
+    }
+
+    @Test
+    @DisplayName("CSV: 必須の列がないヘッダー・空のファイルは 400")
+    void testCsvHeaderErrors() {
+
+        assertThrows(BadRequestException.class, () -> bulkImportService.importEmployeesCsv(
+                stream("lastName,firstName,email,departmentId,position\n"), null));
+        assertThrows(BadRequestException.class, () -> bulkImportService.importEmployeesCsv(stream(""), null));
+        verifyNoInteractions(employeesBatchRepository);
+    }
+
+    @Test
+    @DisplayName("COPY 取り込み: ヘッダーの順に列を指定して COPY し、ステージング・マージ・参照先なしの件数を返す")
+    void testCopyEmployeesCounts() {
+
+        List<String> copied = new ArrayList<>();
+        when(pgCopyRepository.copyIn(anyString(), any(InputStream.class))).thenAnswer(invocation -> {
+            copied.add(invocation.getArgument(0));
+            try (InputStream data = invocation.getArgument(1)) {
+                copied.add(new String(data.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return 5L;
+        });
+        when(employeesRepository.countRejectedStaging()).thenReturn(1L);
+        when(employeesRepository.mergeStaging()).thenReturn(3L);
+
+        String rows = "a@example.com,山田,太郎,1,一般,2020-04-01\n\"b@example.com\",\"佐,藤\",花子,2,一般,2020-04-01\n";
+        CopyImportResult result = bulkImportService.copyEmployeesCsv(
+                stream("Email,last_name,firstName,department_id,POSITION,hireDate\n" + rows));
+
+        assertEquals(new CopyImportResult(5, 3, 1), result);
+        // ヘッダーの行だけを読み、データ行はそのまま COPY に渡す
+        assertEquals(List.of("COPY employees_staging (email,last_name,first_name,department_id,position,hire_date)"
+                + " FROM STDIN WITH (FORMAT csv)", rows), copied);
+
+        // ステージング → 変更履歴のステージング → マージ → (コミット後に) 人数カウンターの突き合わせ
+        InOrder inOrder = inOrder(employeesRepository, pgCopyRepository, changeLog, headcountCounters);
+        inOrder.verify(employeesRepository).createStaging();
+        inOrder.verify(pgCopyRepository).copyIn(anyString(), any(InputStream.class));
+        inOrder.verify(employeesRepository).countRejectedStaging();
+        inOrder.verify(changeLog).openStaging();
+        inOrder.verify(employeesRepository).mergeStaging();
+        inOrder.verify(headcountCounters).reconcileAfterCommit();
+    }
+
+    @Test
+    @DisplayName("COPY 取り込み (部署): ステージングとマージの件数を返す")
+    void testCopyDepartmentsCounts() {
+
+        when(pgCopyRepository.copyIn(anyString(), any(InputStream.class))).thenReturn(4L);
+        when(departmentsRepository.mergeStaging()).thenReturn(2L);
+
+        CopyImportResult result = bulkImportService.copyDepartmentsCsv(
+                stream("location,name\r\n八戸市,営業部\r\n盛岡市,総務部\r\n"));
+
+        assertEquals(new CopyImportResult(4, 2, 0), result);
+        verify(pgCopyRepository, times(1)).copyIn(
+                eq("COPY departments_staging (location,name) FROM STDIN WITH (FORMAT csv)"), any(InputStream.class));
+        InOrder inOrder = inOrder(departmentsRepository, changeLog);
+        inOrder.verify(departmentsRepository).createStaging();
+        inOrder.verify(changeLog).openStaging();
+        inOrder.verify(departmentsRepository).mergeStaging();
+    }
+
+    @Test
+    @DisplayName("COPY 取り込み: 取り込めない列・重複した列・足りない列のヘッダーは COPY せずに 400")
+    void testCopyHeaderErrors() {
+
+        assertThrows(BadRequestException.class, () -> bulkImportService.copyEmployeesCsv(
+                stream("lastName,firstName,email,departmentId,position,hireDate,salary\n")));
+        assertThrows(BadRequestException.class, () -> bulkImportService.copyEmployeesCsv(
+                stream("lastName,last_name,firstName,email,departmentId,position,hireDate\n")));
+        assertThrows(BadRequestException.class, () -> bulkImportService.copyEmployeesCsv(
+                stream("lastName,firstName,email,departmentId,position\n")));
+        assertThrows(BadRequestException.class, () -> bulkImportService.copyDepartmentsCsv(stream("\n")));
+        verifyNoInteractions(pgCopyRepository);
+        verify(employeesRepository, never()).createStaging();
+    }
+
+    private static void assertEmployee(Employees employee, String lastName, String firstName, String email,
+                                       Long departmentId, String position, String hireDate) {
+        assertEquals(lastName, employee.getLastName());
+        assertEquals(firstName, employee.getFirstName());
+        assertEquals(email, employee.getEmail());
+        assertEquals(departmentId, employee.getDepartmentId());
+        assertEquals(position, employee.getPosition());
+        assertEquals(LocalDate.parse(hireDate), employee.getHireDate());
+        assertNull(employee.getId());
+    }
+
+    private static Departments department(long id) {
+        Departments department = new Departments();
+        department.setId(id);
+        return department;
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.hrsystem;
+
+import com.example.hrsystem.dto.AssignmentHeadcount;
+import com.example.hrsystem.dto.EmployeeAssignment;
+import com.example.hrsystem.dto.EmployeeAssignmentChange;
+import com.example.hrsystem.dto.HeadcountSnapshot;
+import com.example.hrsystem.mapper.ReportsMapper;
+import com.example.hrsystem.service.HeadcountCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// メモリ上の人数カウンター (DB の代わりに Mockito の ReportsMapper と DataSource を使う)
+public class HeadcountCountersTest {
+
+    private static final EmployeeAssignment SALES_STAFF = new EmployeeAssignment(1L, "一般");
+    private static final EmployeeAssignment SALES_MANAGER = new EmployeeAssignment(1L, "課長");
+    private static final EmployeeAssignment GENERAL_STAFF = new EmployeeAssignment(2L, "一般");
+    private static final EmployeeAssignment UNASSIGNED_STAFF = new EmployeeAssignment(null, "一般");
+
+    private ReportsMapper reportsMapper;
+    private TaskScheduler taskScheduler;
+    private HeadcountCounters headcountCounters;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        reportsMapper = mock(ReportsMapper.class);
+        taskScheduler = mock(TaskScheduler.class);
+        headcountCounters = new HeadcountCounters(reportsMapper, taskScheduler);
+
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    @DisplayName("追加・部署と役職の変更・削除で、部署ごと・役職ごとの人数が増減する")
+    void testDeltas() {
+
+        headcountCounters.added(SALES_STAFF);
+        headcountCounters.added(SALES_STAFF);
+        headcountCounters.added(UNASSIGNED_STAFF);
+        assertSnapshot(3, 1, Map.of(1L, 2L), Map.of("一般", 3L));
+
+        // 部署と役職の変更
+        headcountCounters.moved(SALES_STAFF, GENERAL_STAFF);
+        headcountCounters.moved(SALES_STAFF, SALES_MANAGER);
+        assertSnapshot(3, 1, Map.of(1L, 1L, 2L, 1L), Map.of("一般", 2L, "課長", 1L));
+
+        // 変わっていなければそのまま
+        headcountCounters.moved(GENERAL_STAFF, GENERAL_STAFF);
+        assertSnapshot(3, 1, Map.of(1L, 1L, 2L, 1L), Map.of("一般", 2L, "課長", 1L));
+
+        // 削除 (0人になった部署・役職は含まない)
+        headcountCounters.removed(SALES_MANAGER);
+        headcountCounters.removed(UNASSIGNED_STAFF);
+        assertSnapshot(1, 0, Map.of(2L, 1L), Map.of("一般", 1L));
+
+        // 一括更新 (部署の変更) と一括削除
+        headcountCounters.changed(List.of(
+                new EmployeeAssignmentChange(10L, 2L, "一般", 1L, "一般")));
+        assertSnapshot(1, 0, Map.of(1L, 1L), Map.of("一般", 1L));
+        headcountCounters.changed(List.of(
+                new EmployeeAssignmentChange(10L, 1L, "一般", null, null)));
+        assertSnapshot(0, 0, Map.of(), Map.of());
+    }
+
+    @Test
+    @DisplayName("トランザクション中の増減はコミット後に反映し、ロールバックされたら反映しない")
+    void testRollbackLeavesCountersUnchanged() {
+
+        headcountCounters.added(SALES_STAFF);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            headcountCounters.added(GENERAL_STAFF);
+            headcountCounters.moved(SALES_STAFF, SALES_MANAGER);
+            headcountCounters.removed(SALES_STAFF);
+            // コミットまでは見えない
+            assertSnapshot(1, 0, Map.of(1L, 1L), Map.of("一般", 1L));
+            status.setRollbackOnly();
+        });
+        assertSnapshot(1, 0, Map.of(1L, 1L), Map.of("一般", 1L));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            headcountCounters.added(GENERAL_STAFF);
+            headcountCounters.moved(SALES_STAFF, SALES_MANAGER);
+        });
+        assertSnapshot(2, 0, Map.of(1L, 1L, 2L, 1L), Map.of("一般", 1L, "課長", 1L));
+    }
+
+    @Test
+    @DisplayName("突き合わせで DB の人数に置き換え、ずれを補正する")
+    void testReconcileCorrectsDrift() {
+
+        // 他のサーバーの更新や一括取り込みで、DB とずれている
+        headcountCounters.added(SALES_STAFF);
+        headcountCounters.added(SALES_STAFF);
+        headcountCounters.added(UNASSIGNED_STAFF);
+        assertNull(headcountCounters.snapshot().reconciledAt());
+
+        when(reportsMapper.headcountByAssignment()).thenReturn(List.of(
+                new AssignmentHeadcount(1L, "一般", 5),
+                new AssignmentHeadcount(1L, "課長", 1),
+                new AssignmentHeadcount(2L, "一般", 3)));
+        headcountCounters.reconcile();
+
+        assertSnapshot(9, 0, Map.of(1L, 6L, 2L, 3L), Map.of("一般", 8L, "課長", 1L));
+        assertNotNull(headcountCounters.snapshot().reconciledAt());
+
+        // 突き合わせの後は DB の人数から増減する
+        headcountCounters.removed(GENERAL_STAFF);
+        assertSnapshot(8, 0, Map.of(1L, 6L, 2L, 2L), Map.of("一般", 7L, "課長", 1L));
+    }
+
+    @Test
+    @DisplayName("件数の分からない更新の後の突き合わせは、コミットされてから予約する")
+    void testReconcileAfterCommit() {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            headcountCounters.reconcileAfterCommit();
+            status.setRollbackOnly();
+        });
+        verifyNoInteractions(taskScheduler);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            headcountCounters.reconcileAfterCommit();
+            verifyNoInteractions(taskScheduler);
+        });
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        verifyNoInteractions(reportsMapper);
+    }
+
+    private void assertSnapshot(long total, long unassigned, Map<Long, Long> departments, Map<String, Long> positions) {
+        HeadcountSnapshot snapshot = headcountCounters.snapshot();
+        assertEquals(total, snapshot.totalHeadcount());
+        assertEquals(unassigned, snapshot.unassigned());
+        assertEquals(departments, snapshot.departments());
+        assertEquals(positions, snapshot.positions());
+    }
+}
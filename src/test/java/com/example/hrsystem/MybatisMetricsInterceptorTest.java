@@ -0,0 +1,153 @@
+package com.example.hrsystem;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.hrsystem.config.MybatisMetricsInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Mapper の SQL ごとの計測 (StatementHandler は MyBatis の本物、Invocation は Mockito で結果だけ返す)
+public class MybatisMetricsInterceptorTest {
+
+    private static final String FIND_BY_ID = "com.example.hrsystem.mapper.EmployeesMapper.findEmployeeById";
+    private static final String UPDATE = "com.example.hrsystem.mapper.EmployeesMapper.updateEmployee";
+    private static final String FIND_BY_ID_SQL = "SELECT id, last_name\n  FROM employees\n WHERE id = ?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Configuration configuration = new Configuration();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(MybatisMetricsInterceptor.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    @DisplayName("SELECT の実行時間と行数を、Mapper のメソッド名・種類・結果のタグ付きで記録する")
+    void testSelectRecordsTimerAndRows() throws Throwable {
+
+        MybatisMetricsInterceptor interceptor = interceptor(Duration.ofHours(1));
+        List<String> rows = List.of("山田", "佐藤", "鈴木");
+
+        assertSame(rows, interceptor.intercept(invocation(FIND_BY_ID, SqlCommandType.SELECT, rows)));
+        interceptor.intercept(invocation(FIND_BY_ID, SqlCommandType.SELECT, List.of()));
+
+        assertEquals(2, timer("EmployeesMapper.findEmployeeById", "SELECT", "SUCCESS").count());
+        assertEquals(0, timer("EmployeesMapper.findEmployeeById", "SELECT", "ERROR").count());
+        DistributionSummary summary = rows("EmployeesMapper.findEmployeeById", "SELECT");
+        assertEquals(2, summary.count());
+        assertEquals(3, summary.totalAmount());
+        assertEquals(3, summary.max());
+    }
+
+    @Test
+    @DisplayName("更新系は変更した行数を記録し、例外は ERROR の実行時間だけ記録してそのまま投げる")
+    void testUpdateRowsAndError() throws Throwable {
+
+        MybatisMetricsInterceptor interceptor = interceptor(Duration.ofHours(1));
+
+        interceptor.intercept(invocation(UPDATE, SqlCommandType.UPDATE, 1));
+
+        // Mapper のメソッドはリフレクションで呼ばれるので、SQL の例外は包まれて届く
+        InvocationTargetException failure = new InvocationTargetException(
+                new SQLException("could not serialize access", "40001"));
+        Invocation failing = invocation(UPDATE, SqlCommandType.UPDATE, null);
+        when(failing.proceed()).thenThrow(failure);
+        assertSame(failure, assertThrows(InvocationTargetException.class, () -> interceptor.intercept(failing)));
+
+        assertEquals(1, timer("EmployeesMapper.updateEmployee", "UPDATE", "SUCCESS").count());
+        assertEquals(1, timer("EmployeesMapper.updateEmployee", "UPDATE", "ERROR").count());
+        assertEquals(1, rows("EmployeesMapper.updateEmployee", "UPDATE").count());
+        assertEquals(1, rows("EmployeesMapper.updateEmployee", "UPDATE").totalAmount());
+    }
+
+    @Test
+    @DisplayName("カーソルは実行時間だけ記録し、行数は記録しない")
+    void testCursorSkipsRows() throws Throwable {
+
+        MybatisMetricsInterceptor interceptor = interceptor(Duration.ofHours(1));
+        Cursor<?> cursor = mock(Cursor.class);
+
+        assertSame(cursor, interceptor.intercept(invocation(FIND_BY_ID, SqlCommandType.SELECT, cursor)));
+
+        assertEquals(1, timer("EmployeesMapper.findEmployeeById", "SELECT", "SUCCESS").count());
+        assertEquals(0, rows("EmployeesMapper.findEmployeeById", "SELECT").count());
+        verifyNoInteractions(cursor);
+    }
+
+    @Test
+    @DisplayName("しきい値以上かかった SQL だけ、1行にまとめた SQL と行数を WARN で出す")
+    void testSlowStatementLogged() throws Throwable {
+
+        interceptor(Duration.ofHours(1)).intercept(invocation(FIND_BY_ID, SqlCommandType.SELECT, List.of("山田")));
+        assertTrue(appender.list.isEmpty());
+
+        interceptor(Duration.ZERO).intercept(invocation(FIND_BY_ID, SqlCommandType.SELECT, List.of("山田")));
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        String message = event.getFormattedMessage();
+        assertTrue(message.startsWith("遅い SQL: EmployeesMapper.findEmployeeById "), message);
+        assertTrue(message.endsWith(" rows=1 sql=SELECT id, last_name FROM employees WHERE id = ?"), message);
+    }
+
+    private MybatisMetricsInterceptor interceptor(Duration slowThreshold) {
+        return new MybatisMetricsInterceptor(meterRegistry, slowThreshold);
+    }
+
+    // Mapper の SQL を実行する StatementHandler を組み立て、proceed で result を返す Invocation にする
+    private Invocation invocation(String statementId, SqlCommandType type, Object result) throws Throwable {
+        StaticSqlSource sqlSource = new StaticSqlSource(configuration, FIND_BY_ID_SQL);
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration, statementId, sqlSource, type).build();
+        BoundSql boundSql = sqlSource.getBoundSql(1L);
+        RoutingStatementHandler handler = new RoutingStatementHandler(
+                mock(Executor.class), mappedStatement, 1L, RowBounds.DEFAULT, null, boundSql);
+
+        Invocation invocation = mock(Invocation.class);
+        when(invocation.getTarget()).thenReturn(handler);
+        when(invocation.proceed()).thenReturn(result);
+        return invocation;
+    }
+
+    private Timer timer(String statement, String type, String outcome) {
+        return meterRegistry.get("mybatis.statement")
+                .tag("statement", statement).tag("type", type).tag("outcome", outcome).timer();
+    }
+
+    private DistributionSummary rows(String statement, String type) {
+        return meterRegistry.get("mybatis.statement.rows").tag("statement", statement).tag("type", type).summary();
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.hrsystem;
+
+import com.example.hrsystem.config.PrimaryReads;
+import com.example.hrsystem.config.ReadReplicas;
+import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.mapper.DepartmentsMapper;
+import com.example.hrsystem.repository.DepartmentsRepository;
+import com.example.hrsystem.repository.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// 読み取り専用トランザクションのレプリカへの振り分け (DB の代わりに Mockito の DataSource を使う)
+public class ReadReplicaRoutingTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReadReplicas readReplicas;
+    private DataSource dataSource;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource(0);
+        replica = dataSource(0);
+        readReplicas = new ReadReplicas(primary, Map.of("replica-1", replica), Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+        // DataSourceConfig と同じ組み立て
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.setReadOnlyDataSource(readReplicas);
+        dataSource = proxy;
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @Test
+    @DisplayName("読み取り専用トランザクションはレプリカ、それ以外はプライマリから接続を取る")
+    void testRouting() throws SQLException {
+
+        readReplicas.checkLag();
+        clearInvocations(primary, replica);
+
+        runSql(true);
+        verify(replica, times(1)).getConnection();
+        verify(primary, never()).getConnection();
+
+        runSql(false);
+        verify(primary, times(1)).getConnection();
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("遅延が max-lag を超えたレプリカ・確認前のレプリカは使わず、プライマリから読む")
+    void testFallbackToPrimary() throws SQLException {
+
+        // 確認前
+        runSql(true);
+        verify(primary, times(1)).getConnection();
+
+        // 遅延 30 秒
+        replica = dataSource(30);
+        readReplicas = new ReadReplicas(primary, Map.of("replica-1", replica), Duration.ofSeconds(5), new SimpleMeterRegistry());
+        ((LazyConnectionDataSourceProxy) dataSource).setReadOnlyDataSource(readReplicas);
+        readReplicas.checkLag();
+        clearInvocations(primary, replica);
+
+        runSql(true);
+        verify(primary, times(1)).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("プライマリに固定している間は、読み取り専用でもプライマリから読む (read-your-writes)")
+    void testPinToPrimary() throws SQLException {
+
+        readReplicas.checkLag();
+        clearInvocations(primary, replica);
+
+        try (PrimaryReads.Pin pin = PrimaryReads.pin()) {
+            runSql(true);
+        }
+        verify(primary, times(1)).getConnection();
+        verify(replica, never()).getConnection();
+
+        // 固定を外せばレプリカに戻る
+        runSql(true);
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("書き込みでキャッシュが消えた後の読み込みは、遅れたレプリカの古い行をキャッシュに入れ直さない")
+    void testCacheLoadsFromPrimary() throws SQLException {
+
+        readReplicas.checkLag();
+        Connection primaryConnection = primary.getConnection();
+        clearInvocations(primary, replica);
+
+        // プライマリの行 (レプリカはずっと古い行のまま。書き込みがまだ届いていない)
+        Departments oldRow = department("東京");
+        Departments newRow = department("大阪");
+        AtomicReference<Departments> primaryRow = new AtomicReference<>(oldRow);
+        DepartmentsMapper departmentsMapper = mock(DepartmentsMapper.class);
+        when(departmentsMapper.findByDepartmentsId(1L)).thenAnswer(invocation -> {
+            // SQL を投げる時点で接続を取る (LazyConnectionDataSourceProxy)
+            Connection connection = ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection();
+            return connection == primaryConnection ? primaryRow.get() : oldRow;
+        });
+        when(departmentsMapper.updateDepartments(any(Departments.class))).thenAnswer(invocation -> {
+            primaryRow.set(newRow);
+            return newRow;
+        });
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(CachingConfig.class);
+            context.registerBean(CacheManager.class, () -> new TransactionAwareCacheManagerProxy(
+                    new ConcurrentMapCacheManager(DepartmentsRepository.LIST_CACHE, DepartmentsRepository.ITEM_CACHE)));
+            context.registerBean(DepartmentsMapper.class, () -> departmentsMapper);
+            context.registerBean(SingleFlight.class, () -> new SingleFlight(true, new SimpleMeterRegistry()));
+            context.registerBean(DepartmentsRepository.class);
+            context.refresh();
+            DepartmentsRepository departmentsRepository = context.getBean(DepartmentsRepository.class);
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+            // 書き込み前の行をキャッシュ → 書き込み (コミット後にキャッシュから消える) → 読み込み (DepartmentService.findById と同じ読み取り専用)
+            assertEquals("東京", readOnly.execute(status -> departmentsRepository.findById(1L)).getLocation());
+            readWrite.executeWithoutResult(status -> departmentsRepository.update(newRow));
+            assertEquals("大阪", readOnly.execute(status -> departmentsRepository.findById(1L)).getLocation());
+
+            // キャッシュに入ったのも新しい行
+            assertEquals("大阪", readOnly.execute(status -> departmentsRepository.findById(1L)).getLocation());
+            verify(departmentsMapper, times(2)).findByDepartmentsId(1L);
+            verify(replica, never()).getConnection();
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+    }
+
+    private static Departments department(String location) {
+        Departments department = new Departments();
+        department.setId(1L);
+        department.setName("総務部");
+        department.setLocation(location);
+        return department;
+    }
+
+    // トランザクションの中で SQL を1本投げる (このときに実際の接続を取る)
+    private void runSql(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Statement statement = DataSourceUtils.getConnection(dataSource).createStatement()) {
+                statement.execute("SELECT 1");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // 遅延の問い合わせに lagSeconds を返す DataSource
+    private static DataSource dataSource(double lagSeconds) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -1,32 +1,66 @@
 package com.example.hrsystem;
 
+import com.example.hrsystem.controller.ChangesController;
 import com.example.hrsystem.controller.DepartmentsController;
 import com.example.hrsystem.controller.EmployeesController;
+import com.example.hrsystem.controller.ReportsController;
+import com.example.hrsystem.dto.BulkUpdateResult;
+import com.example.hrsystem.dto.ChangeEvent;
+import com.example.hrsystem.dto.DepartmentHeadcount;
 import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.EmployeeLookupResult;
+import com.example.hrsystem.dto.EmployeeMatch;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.dto.HeadcountSnapshot;
+import com.example.hrsystem.dto.MonthlyHires;
+import com.example.hrsystem.exception.ConflictException;
+import com.example.hrsystem.exception.PreconditionFailedException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
+import com.example.hrsystem.dto.BulkImportResult;
+import com.example.hrsystem.dto.CopyImportResult;
+import com.example.hrsystem.service.BulkImportService;
+import com.example.hrsystem.service.ChangeFeed;
 import com.example.hrsystem.service.DepartmentService;
+import com.example.hrsystem.service.EmployeesExportService;
 import com.example.hrsystem.service.EmployeesService;
+import com.example.hrsystem.service.ReportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest({DepartmentsController.class, EmployeesController.class})
+@WebMvcTest({DepartmentsController.class, EmployeesController.class, ReportsController.class, ChangesController.class})
 @DisplayName("RESTful API Tests")
 public class RestfulApiTest {
 
@@ -42,6 +76,18 @@ public class RestfulApiTest {
     @MockBean
     private EmployeesService employeesService;
 
+    @MockBean
+    private BulkImportService bulkImportService;
+
+    @MockBean
+    private EmployeesExportService employeesExportService;
+
+    @MockBean
+    private ReportService reportService;
+
+    @MockBean
+    private ChangeFeed changeFeed;
+
     // --- Departments API Tests ---
 
     @Test
@@ -151,6 +197,26 @@ public class RestfulApiTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("[Departments] DELETE /api/departments/{id} - Should return 409 when employees still belong to it")
+    void testDeleteDepartment_HasEmployees() throws Exception {
+        when(departmentService.deleteById(1L)).thenThrow(new ConflictException("部署1には所属する従業員がいるため削除できません。"));
+
+        mockMvc.perform(delete("/api/departments/1"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("[Departments] DELETE /api/departments/{id}?mode=reassign - Should reassign employees before deleting")
+    void testDeleteDepartment_Reassign() throws Exception {
+        when(departmentService.deleteById(1L, DepartmentService.DeleteMode.REASSIGN, 2L)).thenReturn(1);
+
+        mockMvc.perform(delete("/api/departments/1").param("mode", "reassign").param("reassignTo", "2"))
+                .andExpect(status().isNoContent());
+
+        verify(departmentService).deleteById(1L, DepartmentService.DeleteMode.REASSIGN, 2L);
+    }
+
     // --- Employees API Tests ---
 
     @Test
@@ -173,6 +239,200 @@ public class RestfulApiTest {
                 .andExpect(jsonPath("$[1].firstName").value("Hanako"));
     }
 
+    @Test
+    @DisplayName("[Employees] GET /api/employees?limit= - Should return a page with next cursor")
+    void testFindEmployeesPage() throws Exception {
+        Employees emp1 = new Employees();
+        emp1.setId(11L);
+        Employees emp2 = new Employees();
+        emp2.setId(12L);
+
+        when(employeesService.findPage(10L, 2)).thenReturn(List.of(emp1, emp2));
+
+        mockMvc.perform(get("/api/employees").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(header().string("Link", "<http://localhost/api/employees?after=12&limit=2>; rel=\"next\""));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees?updatedSince= - Should return changed employees with the next watermark")
+    void testFindEmployeesUpdatedSince() throws Exception {
+        Employees emp1 = new Employees();
+        emp1.setId(5L);
+        emp1.setUpdatedAt(OffsetDateTime.parse("2024-04-01T09:00:00+09:00"));
+        Employees emp2 = new Employees();
+        emp2.setId(3L);
+        emp2.setUpdatedAt(OffsetDateTime.parse("2024-04-01T10:00:00+09:00"));
+
+        when(employeesService.findUpdatedSince(argThat(since -> since.toInstant().equals(OffsetDateTime.parse("2024-04-01T00:00:00Z").toInstant())),
+                isNull(), eq(2))).thenReturn(List.of(emp1, emp2));
+
+        mockMvc.perform(get("/api/employees").param("updatedSince", "2024-04-01T09:00:00+09:00").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "3"))
+                .andExpect(header().string("X-Next-Updated-Since", "2024-04-01T01:00:00Z"))
+                .andExpect(header().string("Link",
+                        "<http://localhost/api/employees?updatedSince=2024-04-01T01:00:00Z&after=3&limit=2>; rel=\"next\""));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/deleted - Should return 400 when since is missing")
+    void testFindDeletedEmployees_MissingSince() throws Exception {
+        mockMvc.perform(get("/api/employees/deleted"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("since")));
+    }
+
+    @Test
+    @DisplayName("[Employees] POST /api/employees/bulk/move - Should move matching employees and return the count")
+    void testBulkMoveEmployees() throws Exception {
+        when(employeesService.move(argThat(request -> request.getDepartmentId() == 1L
+                && "主任".equals(request.getPosition()) && request.getToDepartmentId() == 3L)))
+                .thenReturn(new BulkUpdateResult(120, List.of()));
+
+        mockMvc.perform(post("/api/employees/bulk/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"departmentId\":1,\"position\":\"主任\",\"toDepartmentId\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(120))
+                .andExpect(jsonPath("$.notFound.length()").value(0));
+    }
+
+    @Test
+    @DisplayName("[Employees] POST /api/employees/bulk/delete - Should report ids that were not found")
+    void testBulkDeleteEmployees() throws Exception {
+        when(employeesService.deleteAll(List.of(1L, 2L, 99L))).thenReturn(new BulkUpdateResult(2, List.of(99L)));
+
+        mockMvc.perform(post("/api/employees/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,99]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value(99));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees?limit= - Last page should not have next cursor")
+    void testFindEmployeesPage_LastPage() throws Exception {
+        Employees emp = new Employees();
+        emp.setId(11L);
+
+        when(employeesService.findPage(null, 5)).thenReturn(List.of(emp));
+
+        mockMvc.perform(get("/api/employees").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/search - Should bind filters and keep them in the next link")
+    void testSearchEmployees() throws Exception {
+        Employees emp1 = new Employees();
+        emp1.setId(21L);
+        Employees emp2 = new Employees();
+        emp2.setId(25L);
+
+        when(employeesService.search(argThat(c -> Long.valueOf(2L).equals(c.getDepartmentId())
+                && "主任".equals(c.getPosition())
+                && LocalDate.of(2020, 1, 1).equals(c.getHireDateFrom())
+                && "山".equals(c.getName())
+                && Integer.valueOf(2).equals(c.getLimit()))))
+                .thenReturn(List.of(emp1, emp2));
+
+        // 次ページの URL はクエリ文字列から作るので、引き継がれるかを見たい条件はクエリ文字列で渡す
+        mockMvc.perform(get("/api/employees/search?departmentId=2&limit=2")
+                        .param("position", "主任")
+                        .param("hireDateFrom", "2020-01-01")
+                        .param("name", "山"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "25"))
+                .andExpect(header().string("Link", containsString("departmentId=2")))
+                .andExpect(header().string("Link", containsString("after=25")));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/search - Should return 400 for an invalid date")
+    void testSearchEmployees_InvalidDate() throws Exception {
+        mockMvc.perform(get("/api/employees/search").param("hireDateFrom", "2020/01/01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/typeahead - Should return ranked name matches")
+    void testTypeaheadEmployees() throws Exception {
+        when(employeesService.typeahead("山田", 5)).thenReturn(List.of(
+                new EmployeeMatch(1L, "山田", "太郎", 1L, "部長", 0.5),
+                new EmployeeMatch(7L, "山田", "花子", 2L, "主任", 0.4)));
+
+        mockMvc.perform(get("/api/employees/typeahead").param("q", "山田").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("太郎"))
+                .andExpect(jsonPath("$[0].score").value(0.5));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/stream - Should stream all employees as a JSON array")
+    void testStreamEmployees() throws Exception {
+        Employees emp1 = new Employees();
+        emp1.setId(1L);
+        emp1.setFirstName("Taro");
+        Employees emp2 = new Employees();
+        emp2.setId(2L);
+        emp2.setFirstName("Hanako");
+
+        doAnswer(invocation -> {
+            Consumer<Employees> action = invocation.getArgument(0);
+            action.accept(emp1);
+            action.accept(emp2);
+            return null;
+        }).when(employeesService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/api/employees/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].firstName").value("Hanako"));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/export?format=csv - Should stream a CSV attachment")
+    void testExportEmployeesCsv() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("id,lastName\r\n1,Suzuki\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(employeesExportService).writeCsv(any());
+
+        MvcResult result = mockMvc.perform(get("/api/employees/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"employees.csv\""))
+                .andExpect(content().string("id,lastName\r\n1,Suzuki\r\n"));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/export?format=xml - Should return 400 for unknown format")
+    void testExportEmployees_UnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/employees/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("[Employees] GET /api/employees/{id} - Should return an employee")
     void testFindEmployeeById() throws Exception {
@@ -187,6 +447,43 @@ public class RestfulApiTest {
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.firstName").value("Taro"));
     }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees?ids= - Should return employees in request order with missing ids")
+    void testFindEmployeesByIds() throws Exception {
+        Employees emp3 = new Employees();
+        emp3.setId(3L);
+        Employees emp1 = new Employees();
+        emp1.setId(1L);
+
+        when(employeesService.findByIds(List.of(3L, 99L, 1L)))
+                .thenReturn(new EmployeeLookupResult(List.of(emp3, emp1), List.of(99L)));
+
+        mockMvc.perform(get("/api/employees").param("ids", "3,99,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees[0].id").value(3))
+                .andExpect(jsonPath("$.employees[1].id").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(99));
+    }
+
+    @Test
+    @DisplayName("[Employees] GET /api/employees/{id} - Should return CBOR when requested by Accept")
+    void testFindEmployeeById_Cbor() throws Exception {
+        Employees emp = new Employees();
+        emp.setId(1L);
+        emp.setFirstName("Taro");
+
+        when(employeesService.findById(1L)).thenReturn(emp);
+
+        MvcResult result = mockMvc.perform(get("/api/employees/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn();
+
+        Employees decoded = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), Employees.class);
+        assertEquals("Taro", decoded.getFirstName());
+    }
     
     @Test
     @DisplayName("[Employees] GET /api/employees/{id} - Should return 404 for not found")
@@ -222,6 +519,57 @@ public class RestfulApiTest {
                 .andExpect(jsonPath("$.firstName").value("Jiro"));
     }
 
+    @Test
+    @DisplayName("[Employees] POST /api/employees/bulk - Should import a JSON array and report row errors")
+    void testBulkImportEmployees() throws Exception {
+        Employees emp = new Employees();
+        emp.setFirstName("Jiro");
+        emp.setLastName("Suzuki");
+        emp.setEmail("jiro@example.com");
+
+        BulkImportResult result = new BulkImportResult(2, 1, 1,
+                List.of(new BulkImportResult.RowError(2, "email", "このメールアドレスは既に使用されています。")));
+        when(bulkImportService.importEmployees(anyList(), eq(100))).thenReturn(result);
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .param("chunkSize", "100")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(emp, emp))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].field").value("email"));
+    }
+
+    @Test
+    @DisplayName("[Employees] POST /api/employees/bulk (text/csv) - Should import a CSV body")
+    void testBulkImportEmployeesCsv() throws Exception {
+        when(bulkImportService.importEmployeesCsv(any(), isNull()))
+                .thenReturn(new BulkImportResult(1, 1, 0, List.of()));
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType("text/csv")
+                        .content("lastName,firstName,email,departmentId,position,hireDate\n"
+                                + "Suzuki,Jiro,jiro@example.com,1,Staff,2024-04-01\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+    }
+
+    @Test
+    @DisplayName("[Employees] POST /api/employees/bulk/copy - Should load a CSV through COPY")
+    void testCopyImportEmployees() throws Exception {
+        when(bulkImportService.copyEmployeesCsv(any())).thenReturn(new CopyImportResult(3, 2, 1));
+
+        mockMvc.perform(post("/api/employees/bulk/copy")
+                        .contentType("text/csv")
+                        .content("lastName,firstName,email,departmentId,position,hireDate\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.staged").value(3))
+                .andExpect(jsonPath("$.merged").value(2))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
     @Test
     @DisplayName("[Employees] PUT /api/employees/{id} - Should update an employee")
     void testUpdateEmployee() throws Exception {
@@ -243,6 +591,74 @@ public class RestfulApiTest {
                 .andExpect(jsonPath("$.firstName").value("Saburo"));
     }
 
+    @Test
+    @DisplayName("[Employees] GET /api/employees/{id} - Should return ETag and 304 when If-None-Match matches")
+    void testFindEmployeeById_ETag() throws Exception {
+        Employees emp = new Employees();
+        emp.setId(1L);
+        emp.setVersion(3L);
+
+        when(employeesService.findById(1L)).thenReturn(emp);
+
+        mockMvc.perform(get("/api/employees/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3));
+
+        mockMvc.perform(get("/api/employees/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("[Employees] PUT /api/employees/{id} - Should pass If-Match version to the service")
+    void testUpdateEmployee_IfMatch() throws Exception {
+        Employees returnedEmp = new Employees();
+        returnedEmp.setId(1L);
+        returnedEmp.setVersion(4L);
+
+        when(employeesService.update(eq(1L), argThat(e -> Long.valueOf(3L).equals(e.getVersion()))))
+                .thenReturn(returnedEmp);
+
+        mockMvc.perform(put("/api/employees/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Employees())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    @DisplayName("[Employees] PUT /api/employees/{id} - Should return 412 when the version is stale")
+    void testUpdateEmployee_PreconditionFailed() throws Exception {
+        when(employeesService.update(eq(1L), any(Employees.class))).thenThrow(new PreconditionFailedException(1L));
+
+        mockMvc.perform(put("/api/employees/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Employees())))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/api/employees/1")
+                        .header("If-Match", "abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Employees())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("[Employees] PUT /api/employees/{id} - Should return 503 with Retry-After when the change-log lock is busy")
+    void testUpdateEmployee_LockBusy() throws Exception {
+        when(employeesService.update(eq(1L), any(Employees.class)))
+                .thenThrow(new CannotAcquireLockException("変更履歴のロックを 5000 ミリ秒以内に取れませんでした"));
+
+        mockMvc.perform(put("/api/employees/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Employees())))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     @DisplayName("[Employees] DELETE /api/employees/{id} - Should delete an employee")
     void testDeleteEmployee() throws Exception {
@@ -260,4 +676,72 @@ public class RestfulApiTest {
         mockMvc.perform(delete("/api/employees/99"))
                 .andExpect(status().isNotFound());
     }
+
+    // --- Reports API Tests ---
+
+    @Test
+    @DisplayName("[Reports] GET /api/reports/headcount - Should return the in-memory headcount counters")
+    void testHeadcountCounters() throws Exception {
+        when(reportService.headcount()).thenReturn(new HeadcountSnapshot(
+                5, 1, Map.of(1L, 4L), Map.of("部長", 1L, "Staff", 4L), null));
+
+        mockMvc.perform(get("/api/reports/headcount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalHeadcount").value(5))
+                .andExpect(jsonPath("$.unassigned").value(1))
+                .andExpect(jsonPath("$.departments['1']").value(4))
+                .andExpect(jsonPath("$.positions['部長']").value(1));
+    }
+
+    @Test
+    @DisplayName("[Reports] GET /api/reports/headcount/departments - Should return headcount per department")
+    void testHeadcountByDepartment() throws Exception {
+        when(reportService.headcountByDepartment()).thenReturn(List.of(
+                new DepartmentHeadcount(1L, "HR", 12, 3.5),
+                new DepartmentHeadcount(null, "未所属", 2, 1.25)));
+
+        mockMvc.perform(get("/api/reports/headcount/departments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].departmentName").value("HR"))
+                .andExpect(jsonPath("$[0].headcount").value(12))
+                .andExpect(jsonPath("$[1].departmentId").doesNotExist())
+                .andExpect(jsonPath("$[1].averageTenureYears").value(1.25));
+    }
+
+    @Test
+    @DisplayName("[Reports] GET /api/reports/hires - Should parse the month range and reject malformed months")
+    void testHiresPerMonth() throws Exception {
+        when(reportService.hiresPerMonth(YearMonth.of(2024, 1), YearMonth.of(2024, 2))).thenReturn(List.of(
+                new MonthlyHires(LocalDate.of(2024, 1, 1), 5),
+                new MonthlyHires(LocalDate.of(2024, 2, 1), 0)));
+
+        mockMvc.perform(get("/api/reports/hires").param("from", "2024-01").param("to", "2024-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value("2024-01-01"))
+                .andExpect(jsonPath("$[0].hires").value(5))
+                .andExpect(jsonPath("$[1].hires").value(0));
+
+        mockMvc.perform(get("/api/reports/hires").param("from", "2024/01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // --- Changes API Tests ---
+
+    @Test
+    @DisplayName("[Changes] GET /api/changes - Should return changes after the cursor with a next link")
+    void testChangesSince() throws Exception {
+        OffsetDateTime changedAt = OffsetDateTime.parse("2024-04-01T09:00:00Z");
+        when(changeFeed.findSince(10L, 2)).thenReturn(List.of(
+                new ChangeEvent(11L, ChangeEvent.EntityType.EMPLOYEE, 5L, ChangeEvent.Operation.UPDATE, changedAt),
+                new ChangeEvent(12L, ChangeEvent.EntityType.DEPARTMENT, 2L, ChangeEvent.Operation.DELETE, changedAt)));
+
+        mockMvc.perform(get("/api/changes?since=10&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].seq").value(11))
+                .andExpect(jsonPath("$[0].entityType").value("EMPLOYEE"))
+                .andExpect(jsonPath("$[1].operation").value("DELETE"))
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(header().string("Link", containsString("since=12")));
+    }
 }
@@ -0,0 +1,240 @@
+package com.example.hrsystem;
+
+import com.example.hrsystem.config.PrimaryReads;
+import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.repository.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 同時に来た同じ読み込みのまとめ (leader の loader を CountDownLatch で止めて、その間に follower を集める)
+public class SingleFlightTest {
+
+    private static final String NAME = "employee";
+    private static final int FOLLOWERS = 5;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(true, meterRegistry);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("同時に来た同じ読み込みは loader を1回だけ実行し、follower も leader の結果を受け取る")
+    void testFollowersShareResult() throws Exception {
+
+        Employees row = employee("山田");
+        Future<Employees> leader = startLeader(() -> row);
+        List<Future<Employees>> followers = startFollowers();
+        release.countDown();
+
+        Employees leaderResult = leader.get(5, TimeUnit.SECONDS);
+        assertEquals(row, leaderResult);
+        for (Future<Employees> follower : followers) {
+            assertEquals(row, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(FOLLOWERS, count("follower"));
+    }
+
+    @Test
+    @DisplayName("leader と follower はそれぞれ別のインスタンスを受け取り、1人が書き換えても他には見えない")
+    void testFollowersGetCopies() throws Exception {
+
+        Employees row = employee("山田");
+        Future<Employees> leader = startLeader(() -> row);
+        List<Future<Employees>> followers = startFollowers();
+        release.countDown();
+
+        Employees leaderResult = leader.get(5, TimeUnit.SECONDS);
+        List<Employees> followerResults = new ArrayList<>();
+        for (Future<Employees> follower : followers) {
+            followerResults.add(follower.get(5, TimeUnit.SECONDS));
+        }
+        // 1人目の follower が書き換える
+        followerResults.get(0).setLastName("佐藤");
+
+        assertNotSame(row, leaderResult);
+        assertEquals("山田", leaderResult.getLastName());
+        for (Employees followerResult : followerResults.subList(1, FOLLOWERS)) {
+            assertNotSame(leaderResult, followerResult);
+            assertEquals("山田", followerResult.getLastName());
+        }
+    }
+
+    @Test
+    @DisplayName("leader の例外は、待っていたすべての follower にそのまま届く")
+    void testLeaderExceptionReachesFollowers() throws Exception {
+
+        IllegalStateException failure = new IllegalStateException("接続できません");
+        Future<Employees> leader = startLeader(() -> {
+            throw failure;
+        });
+        List<Future<Employees>> followers = startFollowers();
+        release.countDown();
+
+        assertSame(failure, causeOf(leader));
+        for (Future<Employees> follower : followers) {
+            assertSame(failure, causeOf(follower));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("終わった読み込み (成功・失敗とも) は残らず、次の読み込みは loader を実行し直す")
+    void testKeyRemovedAfterCompletion() {
+
+        assertEquals("山田", singleFlight.execute(NAME, 1L, () -> load(employee("山田")), Employees::copy).getLastName());
+        assertEquals("佐藤", singleFlight.execute(NAME, 1L, () -> load(employee("佐藤")), Employees::copy).getLastName());
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute(NAME, 1L, () -> {
+            load(null);
+            throw new IllegalStateException("接続できません");
+        }, Employees::copy));
+        assertEquals("鈴木", singleFlight.execute(NAME, 1L, () -> load(employee("鈴木")), Employees::copy).getLastName());
+
+        assertEquals(4, loads.get());
+        assertEquals(0, count("follower"));
+    }
+
+    @Test
+    @DisplayName("更新中のトランザクションの中ではまとめない (読み取り専用のトランザクションはまとめる)")
+    void testReadWriteTransactionBypassed() throws Exception {
+
+        Employees row = employee("山田");
+        Future<Employees> leader = startLeader(() -> row);
+
+        // leader を止めたままでも待たずに自分で読む
+        Employees own = employee("佐藤");
+        Future<Employees> readWrite = executor.submit(() -> inTransaction(false,
+                () -> singleFlight.execute(NAME, 1L, () -> load(own), Employees::copy)));
+        assertSame(own, readWrite.get(5, TimeUnit.SECONDS));
+        assertEquals(1, count("bypass"));
+
+        Future<Employees> readOnly = executor.submit(() -> inTransaction(true,
+                () -> singleFlight.execute(NAME, 1L, () -> load(own), Employees::copy)));
+        awaitFollowers(1);
+        release.countDown();
+
+        assertEquals("山田", readOnly.get(5, TimeUnit.SECONDS).getLastName());
+        assertEquals("山田", leader.get(5, TimeUnit.SECONDS).getLastName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("プライマリに固定中はまとめない (レプリカから読んでいる leader の結果を受け取らない)")
+    void testPinnedToPrimaryBypassed() throws Exception {
+
+        Future<Employees> leader = startLeader(() -> employee("山田"));
+
+        Employees own = employee("佐藤");
+        Future<Employees> pinned = executor.submit(() -> {
+            try (PrimaryReads.Pin pin = PrimaryReads.pin()) {
+                return singleFlight.execute(NAME, 1L, () -> load(own), Employees::copy);
+            }
+        });
+        assertSame(own, pinned.get(5, TimeUnit.SECONDS));
+        assertEquals(1, count("bypass"));
+
+        release.countDown();
+        assertEquals("山田", leader.get(5, TimeUnit.SECONDS).getLastName());
+    }
+
+    // leader を別スレッドで始め、loader の中で release まで止めておく
+    private Future<Employees> startLeader(Supplier<Employees> result) throws InterruptedException {
+        Future<Employees> leader = executor.submit(() -> singleFlight.execute(NAME, 1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            awaitQuietly(release);
+            return result.get();
+        }, Employees::copy));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    // 同じキーの follower を FOLLOWERS 人始め、全員が leader を待つまで待つ
+    private List<Future<Employees>> startFollowers() throws InterruptedException {
+        List<Future<Employees>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute(NAME, 1L, () -> load(employee("佐藤")), Employees::copy)));
+        }
+        awaitFollowers(FOLLOWERS);
+        return followers;
+    }
+
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("follower") < followers) {
+            assertTrue(System.nanoTime() < deadline, "follower が leader を待ち始めません");
+            Thread.sleep(10);
+        }
+    }
+
+    private double count(String role) {
+        return meterRegistry.get("hr.single-flight.requests").tag("name", NAME).tag("role", role).counter().count();
+    }
+
+    private Employees load(Employees row) {
+        loads.incrementAndGet();
+        return row;
+    }
+
+    // トランザクションの中にいることにする (状態だけ。接続は使わない)
+    private static <T> T inTransaction(boolean readOnly, Callable<T> action) throws Exception {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return action.call();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private static Throwable causeOf(Future<?> future) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Employees employee(String lastName) {
+        Employees employee = new Employees();
+        employee.setId(1L);
+        employee.setLastName(lastName);
+        employee.setFirstName("太郎");
+        employee.setEmail("taro@example.com");
+        employee.setDepartmentId(1L);
+        employee.setPosition("一般");
+        return employee;
+    }
+}
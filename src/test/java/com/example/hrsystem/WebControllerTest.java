@@ -2,8 +2,12 @@ package com.example.hrsystem;
 
 import com.example.hrsystem.controller.WebController;
 import com.example.hrsystem.dto.Departments;
+import com.example.hrsystem.dto.EmployeeListItem;
+import com.example.hrsystem.dto.EmployeeListPage;
 import com.example.hrsystem.dto.Employees;
+import com.example.hrsystem.exception.ConflictException;
 import com.example.hrsystem.exception.ResourceNotFoundException;
+import com.example.hrsystem.repository.EmployeesRepository;
 import com.example.hrsystem.service.DepartmentService;
 import com.example.hrsystem.service.EmployeesService;
 import org.junit.jupiter.api.DisplayName;
@@ -13,12 +17,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -53,6 +64,32 @@ public class WebControllerTest {
                 .andExpect(model().attributeExists("departments"));
     }
 
+    // 部署一覧は一度作った HTML を ETag 付きで返し、同じ ETag で聞き直されたら 304 (Service も呼ばない)
+    @Test
+    public void testShowDepartmentsList_notModified() throws Exception {
+
+        // 他のテストと別の版にして、このテストで作った HTML を使う
+        when(departmentService.dataVersion()).thenReturn(-1L);
+        when(departmentService.findAll()).thenReturn(List.of());
+
+        String eTag = mockMvc.perform(get("/web/departments"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/web/departments").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        // 2回目は HTML を作り直さない
+        verify(departmentService, times(1)).findAll();
+
+        // 部署が更新されたら (版が変わったら) 作り直す
+        when(departmentService.dataVersion()).thenReturn(-2L);
+        mockMvc.perform(get("/web/departments").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("departments/list"));
+        verify(departmentService, times(2)).findAll();
+    }
+
     // テスト (8) の修正例
     @Test
     public void testRegisterDepartment_withValidationError() throws Exception {
@@ -201,10 +238,11 @@ public class WebControllerTest {
     public void testListEmployees() throws Exception {
 
         // (準備)
-        // employeesService.findAll() が呼ばれたら、空リストを返すフリ
-        when(employeesService.findAll()).thenReturn(List.of());
-        // departmentService.findAll() が呼ばれたら、空リストを返すフリ
-        when(departmentService.findAll()).thenReturn(List.of());
+        // employeesService.findListPage() が呼ばれたら、部署名付きの1件を返すフリ
+        EmployeeListItem item = new EmployeeListItem(1L, "山田", "太郎", "yamada@example.com",
+                1L, "営業部", "部長", LocalDate.of(2020, 4, 1));
+        when(employeesService.findListPage(1, 50, "id", "asc"))
+                .thenReturn(new EmployeeListPage(List.of(item), 1, 50, "id", "asc", false));
 
         // (実行)
         mockMvc.perform(get("/web/employees"))
@@ -212,7 +250,59 @@ public class WebControllerTest {
                 // (検証)
                 .andExpect(status().isOk()) // 200 OK
                 .andExpect(view().name("employees/list")) // list.html
-                .andExpect(model().attributeExists("employees")); // "employees" がModelにある
+                .andExpect(model().attributeExists("employees")) // "employees" がModelにある
+                // 部署名が描画されていること
+                .andExpect(content().string(containsString("営業部")));
+    }
+
+    // (15-2) 「従業員一覧」の並び替え・ページ指定がServiceに渡ること
+    @Test
+    public void testListEmployees_withPagingAndSort() throws Exception {
+
+        // (準備)
+        EmployeeListPage secondPage = new EmployeeListPage(List.of(), 2, 20, "hireDate", "desc", true);
+        when(employeesService.findListPage(2, 20, "hireDate", "desc")).thenReturn(secondPage);
+
+        // (実行)
+        mockMvc.perform(get("/web/employees")
+                        .param("page", "2")
+                        .param("size", "20")
+                        .param("sort", "hireDate")
+                        .param("dir", "desc"))
+
+                // (検証)
+                .andExpect(status().isOk())
+                .andExpect(view().name("employees/list"))
+                .andExpect(model().attribute("page", secondPage))
+                // 次ページへのリンクが描画されていること
+                .andExpect(content().string(containsString("page=3")));
+    }
+
+    // (15-3) とても大きなページ番号でも 500 にならないこと (OFFSET が int であふれて負にならない)
+    @Test
+    public void testListEmployees_hugePage() throws Exception {
+
+        // (準備)
+        EmployeeListPage lastPage = new EmployeeListPage(List.of(), EmployeesService.MAX_LIST_PAGE, 200, "id", "asc", false);
+        when(employeesService.findListPage(20000000, 200, "id", "asc")).thenReturn(lastPage);
+
+        // (実行・検証) コントローラーはそのまま Service に渡す
+        mockMvc.perform(get("/web/employees")
+                        .param("page", "20000000")
+                        .param("size", "200"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("employees/list"))
+                .andExpect(model().attribute("page", lastPage));
+
+        // (検証) 本物の Service はページ番号を上限で止め、負でない OFFSET で読む
+        EmployeesRepository employeesRepository = mock(EmployeesRepository.class);
+        when(employeesRepository.findListItems(anyString(), anyBoolean(), anyInt(), anyInt())).thenReturn(List.of());
+        EmployeesService realService = new EmployeesService(employeesRepository, null, null, null);
+
+        EmployeeListPage page = realService.findListPage(20000000, 200, "id", "asc");
+
+        assertEquals(EmployeesService.MAX_LIST_PAGE, page.page());
+        verify(employeesRepository).findListItems(eq("id"), eq(false), intThat(offset -> offset >= 0), eq(201));
     }
 
     // (16) 「従業員登録フォーム」の表示テスト (GET)
@@ -444,4 +534,21 @@ public class WebControllerTest {
                 // Controllerが ?delete_error を付けて一覧に戻すはず
                 .andExpect(redirectedUrl("/web/departments?delete_error"));
     }
+
+    // (26) 従業員が所属している部署を削除しようとした時 (POST)
+    @Test
+    @DisplayName("削除POST: 従業員のいる部署は、削除できない旨を付けて一覧にリダイレクトされるべき")
+    public void testDeleteDepartment_HasEmployees() throws Exception {
+
+        // (準備)
+        when(departmentService.deleteById(1L))
+                .thenThrow(new ConflictException("部署1には所属する従業員がいるため削除できません。"));
+
+        // (実行)
+        mockMvc.perform(post("/web/departments/delete/1"))
+
+                // (検証)
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("/web/departments?delete_conflict"));
+    }
 }
\ No newline at end of file